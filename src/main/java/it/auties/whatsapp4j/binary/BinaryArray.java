@@ -1,5 +1,7 @@
 package it.auties.whatsapp4j.binary;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import it.auties.whatsapp4j.utils.internal.Pair;
 import lombok.NonNull;
 import org.bouncycastle.util.encoders.Hex;
@@ -9,15 +11,44 @@ import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.IntStream;
 
 /**
- * A utility class that wraps an array of bytes
+ * A utility class that wraps a view of an array of bytes
  * It provides an easy interface to modify said data, convert it or generate it
+ * Slicing operations, that is {@link BinaryArray#slice(int, int)}, {@link BinaryArray#cut(int)} and {@link BinaryArray#split(int)}, return a new view of the same array and never copy it
+ * The bytes are only copied when {@link BinaryArray#toArray()} is called on a view that doesn't span the whole array
  * This is intended to only be used for WhatsappWeb's WebSocket binary operations
  */
-public record BinaryArray(byte[] data) {
+public final class BinaryArray {
+    /**
+     * The source of random bytes of each thread
+     */
+    private static final ThreadLocal<RandomPool> RANDOM = ThreadLocal.withInitial(RandomPool::new);
+
+    /**
+     * The array of bytes that this object is a view of
+     */
+    private final byte @NonNull [] array;
+
+    /**
+     * The index of {@link BinaryArray#array} where this view starts, inclusive
+     */
+    private final int offset;
+
+    /**
+     * The number of bytes in this view
+     */
+    private final int length;
+
+    private BinaryArray(byte @NonNull [] array, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, array.length);
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
     /**
      * Constructs a new empty {@code BinaryArray}
      *
@@ -33,8 +64,21 @@ public record BinaryArray(byte[] data) {
      * @param in the array of bytes to wrap
      * @return a new {@code BinaryArray} wrapping {@code in}
      */
-    public static @NonNull BinaryArray forArray(byte[] in) {
-        return new BinaryArray(in);
+    @JsonCreator
+    public static @NonNull BinaryArray forArray(@JsonProperty("data") byte @NonNull [] in) {
+        return new BinaryArray(in, 0, in.length);
+    }
+
+    /**
+     * Constructs a new {@code BinaryArray} wrapping a view of {@param in}
+     *
+     * @param in     the array of bytes to wrap
+     * @param offset the index of {@param in} where the view starts, inclusive
+     * @param length the number of bytes in the view
+     * @return a new {@code BinaryArray} wrapping a view of {@code in}
+     */
+    public static @NonNull BinaryArray forArray(byte @NonNull [] in, int offset, int length) {
+        return new BinaryArray(in, offset, length);
     }
 
     /**
@@ -44,7 +88,7 @@ public record BinaryArray(byte[] data) {
      * @return a new non empty {@code BinaryArray} wrapping a bytes array that only contains {@param in}
      */
     public static @NonNull BinaryArray singleton(byte in) {
-        return new BinaryArray(new byte[]{in});
+        return forArray(new byte[]{in});
     }
 
     /**
@@ -69,22 +113,23 @@ public record BinaryArray(byte[] data) {
 
     /**
      * Constructs a {@code BinaryArray} wrapping a generated array of {@param length }pseudo random bytes
+     * The bytes are generated by a {@link SecureRandom} owned by the calling thread, which is seeded only once, and are prefetched in small batches so that bursts of IVs, keys and ids are cheap
      *
      * @param length the length of the array to generate and wrap
      * @return a new {@code BinaryArray} of length {@param length}
      */
     public static @NonNull BinaryArray random(int length) {
         final var result = new byte[length];
-        new SecureRandom().nextBytes(result);
+        RANDOM.get().nextBytes(result);
         return forArray(result);
     }
 
     /**
-     * Constructs a new {@code BinaryArray} wrapping this object's bytes array sliced from
+     * Constructs a new {@code BinaryArray} viewing this object's bytes from
      * 0, inclusive
      * {@param end}, exclusive
      *
-     * @param end the exclusive index used to slice this object's bytes array
+     * @param end the exclusive index used to slice this object's bytes
      * @return a new {@code BinaryArray} with the above characteristics
      */
     public @NonNull BinaryArray cut(int end) {
@@ -92,21 +137,21 @@ public record BinaryArray(byte[] data) {
     }
 
     /**
-     * Constructs a new {@code BinaryArray} wrapping this object's bytes array sliced from
+     * Constructs a new {@code BinaryArray} viewing this object's bytes from
      * {@param start}, inclusive
-     * this object's bytes array size, exclusive
+     * this object's size, exclusive
      *
-     * @param start the inclusive index used to slice this object's bytes array
+     * @param start the inclusive index used to slice this object's bytes
      * @return a new {@code BinaryArray} with the above characteristics
      */
     public @NonNull BinaryArray slice(int start) {
-        return slice(start, data.length);
+        return slice(start, length);
     }
 
     /**
-     * Constructs a {@code Pair} of two {@code BinaryArray} obtained by splitting this object's bytes array at {@param split}
+     * Constructs a {@code Pair} of two {@code BinaryArray} obtained by splitting this object's bytes at {@param split}
      *
-     * @param split the index to split this object's array
+     * @param split the index to split this object's bytes
      * @return a Pair with the above characteristics
      */
     public @NonNull Pair<BinaryArray, BinaryArray> split(int split) {
@@ -114,32 +159,37 @@ public record BinaryArray(byte[] data) {
     }
 
     /**
-     * Returns a new {@code BinaryArray} wrapping this object's bytes array sliced from
+     * Returns a new {@code BinaryArray} viewing this object's bytes from
      * {@param start}, inclusive
      * {@param end}, exclusive
+     * Negative indexes are relative to the end of this object
      *
-     * @param start the inclusive starting index used to slice this object's bytes array
-     * @param end   the exclusive ending index used to slice this object's bytes array
+     * @param start the inclusive starting index used to slice this object's bytes
+     * @param end   the exclusive ending index used to slice this object's bytes
      * @return a new {@code BinaryArray} with the above characteristics
      */
     public @NonNull BinaryArray slice(int start, int end) {
-        return forArray(Arrays.copyOfRange(data, start >= 0 ? start : size() + start, end >= 0 ? end : size() + end));
+        var from = start >= 0 ? start : length + start;
+        var to = end >= 0 ? end : length + end;
+        Objects.checkFromToIndex(from, to, length);
+        return new BinaryArray(array, offset + from, to - from);
     }
 
     /**
      * Constructs a new {@code BinaryArray} by concatenating this object and {@param array}
      *
      * @param array the {@code BinaryArray} to concatenate
-     * @return a new {@code BinaryArray} wrapping a bytes array obtained by concatenating this object's bytes array and {@param array}'s bytes array
+     * @return a new {@code BinaryArray} wrapping a bytes array obtained by concatenating this object's bytes and {@param array}'s bytes
      */
     public @NonNull BinaryArray merged(@NonNull BinaryArray array) {
-        var result = Arrays.copyOf(data, size() + array.size());
-        System.arraycopy(array.data, 0, result, size(), array.size());
+        var result = new byte[length + array.length];
+        System.arraycopy(this.array, offset, result, 0, length);
+        System.arraycopy(array.array, array.offset, result, length, array.length);
         return forArray(result);
     }
 
     /**
-     * Returns the index within this object's bytes array of the first occurrence of a byte that matches {@param character}
+     * Returns the index within this object's bytes of the first occurrence of a byte that matches {@param character}
      * If this condition is met, a non empty Optional wrapping said index is returned
      * Otherwise, an empty Optional is returned
      *
@@ -147,63 +197,157 @@ public record BinaryArray(byte[] data) {
      * @return an Optional wrapping an int with the above characteristics
      */
     public @NonNull Optional<Integer> indexOf(char character) {
-        return IntStream.range(0, size()).filter(index -> data[index] == character).boxed().findFirst();
+        for (var index = 0; index < length; index++) {
+            if (array[offset + index] == character) {
+                return Optional.of(index);
+            }
+        }
+
+        return Optional.empty();
     }
 
     /**
-     * Returns the byte value at the specified index for this object's bytes array
+     * Returns the byte value at the specified index for this object's bytes
      *
      * @param index the index, ranges from 0 to size() - 1
      * @return the byte at {@param index}
      */
     public byte at(int index) {
-        return data[index];
+        return array[offset + Objects.checkIndex(index, length)];
     }
 
     /**
-     * Returns the size of the array of bytes that this object wraps
+     * Returns the size of the view of bytes that this object wraps
      *
-     * @return an unsigned int representing the size of the array of bytes that this object wraps
+     * @return an unsigned int representing the size of the view of bytes that this object wraps
      */
     public int size() {
-        return data.length;
+        return length;
+    }
+
+    /**
+     * Returns the array of bytes that this object is a view of.
+     * The returned array is not copied and must not be modified.
+     * Only the bytes from {@link BinaryArray#offset()}, inclusive, to {@link BinaryArray#offset()} + {@link BinaryArray#size()}, exclusive, belong to this object.
+     *
+     * @return a non null array of bytes
+     */
+    public byte @NonNull [] array() {
+        return array;
+    }
+
+    /**
+     * Returns the index of {@link BinaryArray#array()} where this view starts
+     *
+     * @return an unsigned int
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Returns an array of bytes containing exactly the bytes of this object.
+     * If this object spans the whole array it's a view of, said array is returned, otherwise the bytes are copied.
+     *
+     * @return a non null array of bytes
+     */
+    public byte @NonNull [] toArray() {
+        return offset == 0 && length == array.length ? array : Arrays.copyOfRange(array, offset, offset + length);
     }
 
     /**
-     * Constructs a new ByteBuffer from this object's array of bytes
+     * Returns an array of bytes containing exactly the bytes of this object.
+     * This method is equivalent to {@link BinaryArray#toArray()}.
+     *
+     * @return a non null array of bytes
+     */
+    @JsonProperty("data")
+    public byte @NonNull [] data() {
+        return toArray();
+    }
+
+    /**
+     * Constructs a new ByteBuffer viewing this object's bytes, the bytes are not copied
      *
      * @return an ByteBuffer with the above characteristics
      */
     public @NonNull ByteBuffer toBuffer() {
-        return ByteBuffer.wrap(data);
+        return ByteBuffer.wrap(array, offset, length).slice();
     }
 
     /**
-     * Constructs a new hex from this object's array of bytes
+     * Constructs a new hex from this object's bytes
      *
      * @return a String with the above characteristics
      */
     public @NonNull String toHex() {
-        return Hex.toHexString(data);
+        return Hex.toHexString(array, offset, length);
     }
 
     /**
      * Checks if this object and {@param o} are equal
      *
-     * @return true if {@param o} is an instance of {@code BinaryArray} and if they wrap two arrays considered equal
+     * @return true if {@param o} is an instance of {@code BinaryArray} and if they view two ranges of bytes considered equal
      */
     @Override
     public boolean equals(Object o) {
-        return o instanceof BinaryArray that && Arrays.equals(data, that.data);
+        return o instanceof BinaryArray that && Arrays.equals(array, offset, offset + length, that.array, that.offset, that.offset + that.length);
     }
 
     /**
-     * Constructs a UTF-8 encoded String using this object's array of bytes
+     * Returns a hash code computed using this object's bytes
+     *
+     * @return an int
+     */
+    @Override
+    public int hashCode() {
+        var result = 1;
+        for (var index = offset; index < offset + length; index++) {
+            result = 31 * result + array[index];
+        }
+
+        return result;
+    }
+
+    /**
+     * Constructs a UTF-8 encoded String using this object's bytes
      *
      * @return a String with the above characteristics
      */
     @Override
     public @NonNull String toString() {
-        return new String(data(), StandardCharsets.UTF_8);
+        return new String(array, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A per-thread pool of prefetched secure random bytes
+     * Bytes are erased from the pool as soon as they are handed out
+     */
+    private static final class RandomPool {
+        private static final int POOL_SIZE = 1024;
+        private final @NonNull SecureRandom random = new SecureRandom();
+        private final byte @NonNull [] pool = new byte[POOL_SIZE];
+        private int position = POOL_SIZE;
+
+        private void nextBytes(byte @NonNull [] output) {
+            if (output.length > POOL_SIZE / 4) {
+                random.nextBytes(output);
+                return;
+            }
+
+            var written = 0;
+            while (written < output.length) {
+                if (position == POOL_SIZE) {
+                    random.nextBytes(pool);
+                    position = 0;
+                }
+
+                var length = Math.min(output.length - written, POOL_SIZE - position);
+                System.arraycopy(pool, position, output, written, length);
+                Arrays.fill(pool, position, position + length, (byte) 0);
+                position += length;
+                written += length;
+            }
+        }
     }
-}
\ No newline at end of file
+}
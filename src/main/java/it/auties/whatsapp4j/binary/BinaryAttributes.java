@@ -0,0 +1,172 @@
+package it.auties.whatsapp4j.binary;
+
+import lombok.NonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A compact map used by {@link BinaryDecoder} to store the attributes of a decoded node.
+ * Nodes rarely have more than a handful of attributes, so keys and values are stored in two pre-sized arrays and looked up linearly.
+ * This avoids the buckets and the entry objects that a {@link java.util.HashMap} allocates for each attribute.
+ * Null keys are not supported.
+ */
+final class BinaryAttributes extends AbstractMap<String, String> {
+    /**
+     * The keys of this map
+     */
+    private String[] keys;
+
+    /**
+     * The values of this map, each value is stored at the same index of its key
+     */
+    private String[] values;
+
+    /**
+     * The number of mappings in this map
+     */
+    private int size;
+
+    /**
+     * Constructs a new empty map that can hold {@code capacity} attributes without growing
+     *
+     * @param capacity the expected number of attributes
+     */
+    BinaryAttributes(int capacity) {
+        this.keys = new String[capacity];
+        this.values = new String[capacity];
+    }
+
+    private int indexOf(Object key) {
+        for (var index = 0; index < size; index++) {
+            if (keys[index].equals(key)) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        var index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public String put(@NonNull String key, String value) {
+        var index = indexOf(key);
+        if (index >= 0) {
+            var previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        if (size == keys.length) {
+            var capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        keys[size] = key;
+        values[size++] = value;
+        return null;
+    }
+
+    @Override
+    public String remove(Object key) {
+        var index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+
+        var previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    private void removeAt(int index) {
+        var moved = size - index - 1;
+        System.arraycopy(keys, index + 1, keys, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        keys[--size] = null;
+        values[size] = null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public @NonNull Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public @NonNull Iterator<Map.Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+                    private int last = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        last = next++;
+                        return new SimpleImmutableEntry<>(keys[last], values[last]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) {
+                            throw new IllegalStateException();
+                        }
+
+                        removeAt(last);
+                        next = last;
+                        last = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        var result = 0;
+        for (var index = 0; index < size; index++) {
+            result += keys[index].hashCode() ^ Objects.hashCode(values[index]);
+        }
+
+        return result;
+    }
+}
@@ -1,18 +1,13 @@
 package it.auties.whatsapp4j.binary;
 
-import it.auties.protobuf.decoder.ProtobufDecoder;
-import it.auties.whatsapp4j.protobuf.info.MessageInfo;
+import it.auties.whatsapp4j.protobuf.info.LazyMessageInfo;
 import it.auties.whatsapp4j.protobuf.model.Node;
 import it.auties.whatsapp4j.utils.internal.Validate;
 import lombok.NonNull;
-import lombok.SneakyThrows;
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * A class used to decode an encrypted BinaryArray received from WhatsappWeb's WebSocket.
@@ -26,26 +21,92 @@ import java.util.stream.IntStream;
  */
 public class BinaryDecoder {
     /**
-     * The {@link BinaryArray} to decode
+     * The default maximum nesting depth of a decoded node
      */
-    private BinaryArray buffer;
+    public static final int DEFAULT_MAX_DEPTH = 64;
 
     /**
-     * The current index
+     * The default maximum number of nodes in a decoded frame
      */
-    private int index;
+    public static final int DEFAULT_MAX_NODES = 1_000_000;
+
+    /**
+     * The maximum nesting depth of a decoded node, the root node has depth one
+     */
+    private final int maxDepth;
+
+    /**
+     * The maximum number of nodes in a decoded frame, including the root node
+     */
+    private final int maxNodes;
+
+    /**
+     * Constructs a new decoder that uses {@link BinaryDecoder#DEFAULT_MAX_DEPTH} and {@link BinaryDecoder#DEFAULT_MAX_NODES}
+     */
+    public BinaryDecoder() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * Constructs a new decoder that rejects frames that exceed the provided limits
+     * Nodes are decoded iteratively, so no limit is imposed by the size of the stack
+     *
+     * @param maxDepth the maximum nesting depth of a decoded node, the root node has depth one
+     * @param maxNodes the maximum number of nodes in a decoded frame, including the root node
+     */
+    public BinaryDecoder(int maxDepth, int maxNodes) {
+        Validate.isTrue(maxDepth > 0, "Cannot create decoder: illegal max depth %s", maxDepth);
+        Validate.isTrue(maxNodes > 0, "Cannot create decoder: illegal max nodes %s", maxNodes);
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
 
     /**
      * Decodes {@code buffer} as a new {@link Node}
-     * This method should not be used by multiple concurrent threads on the same instance
+     * This method doesn't use any instance state, so it can be used by multiple concurrent threads on the same instance
      *
      * @param buffer the BinaryArray to decrypt
      * @return a new {@link Node} containing all the information that was decrypted
      */
     public @NonNull Node decodeDecryptedMessage(@NonNull BinaryArray buffer) {
-        this.buffer = buffer;
-        this.index = 0;
-        return readNode();
+        return decodeDecryptedMessage(buffer.toBuffer());
+    }
+
+    /**
+     * Decodes the bytes from the current position of {@code input} to its limit as a new {@link Node}
+     * {@code input} is used as the cursor of the decoding operation: when this method returns its position points to the first byte after the node
+     * This method doesn't use any instance state, so it can be used by multiple concurrent threads on the same instance as long as each uses its own cursor
+     *
+     * @param input the cursor to read
+     * @return a new {@link Node} containing all the information that was decrypted
+     */
+    public @NonNull Node decodeDecryptedMessage(@NonNull ByteBuffer input) {
+        var builder = new BinaryNodeBuilder();
+        decodeDecryptedMessage(input, builder);
+        return builder.result();
+    }
+
+    /**
+     * Decodes {@code buffer} streaming its content as events to {@code handler}, no {@link Node} is built
+     * This method doesn't use any instance state, so it can be used by multiple concurrent threads on the same instance
+     *
+     * @param buffer  the BinaryArray to decrypt
+     * @param handler the handler that receives the decoded events
+     */
+    public void decodeDecryptedMessage(@NonNull BinaryArray buffer, @NonNull BinaryNodeHandler handler) {
+        decodeDecryptedMessage(buffer.toBuffer(), handler);
+    }
+
+    /**
+     * Decodes the bytes from the current position of {@code input} to its limit streaming their content as events to {@code handler}, no {@link Node} is built
+     * {@code input} is used as the cursor of the decoding operation: when this method returns its position points to the first byte after the node
+     * This method doesn't use any instance state, so it can be used by multiple concurrent threads on the same instance as long as each uses its own cursor
+     *
+     * @param input   the cursor to read
+     * @param handler the handler that receives the decoded events
+     */
+    public void decodeDecryptedMessage(@NonNull ByteBuffer input, @NonNull BinaryNodeHandler handler) {
+        readNode(input, handler);
     }
 
     private int unpackNibble(int value) {
@@ -61,60 +122,69 @@ public class BinaryDecoder {
         return value >= 0 && value <= 15 ? value < 10 ? '0' + value : 'A' + value - 10 : 0;
     }
 
-    private int unpackByte(int data, int value) {
-        return switch (BinaryTag.forData(data)) {
+    private int unpackByte(@NonNull BinaryTag tag, int value) {
+        return switch (tag) {
             case NIBBLE_8 -> unpackNibble(value);
             case HEX_8 -> unpackHex(value);
-            default -> throw new IllegalStateException("BinaryReader#unpackByte: unexpected tag: " + data);
+            default -> throw new IllegalStateException("BinaryReader#unpackByte: unexpected tag: " + tag);
         };
     }
 
-    private int readInt(int n) {
-        checkEOS(n);
+    private int readInt(@NonNull ByteBuffer input, int n) {
+        checkEOS(input, n);
         var val = 0;
         for (var i = 0; i < n; i++) {
             var shift = n - 1 - i;
-            val |= readUnsignedInt() << (shift * 8);
+            val |= readUnsignedInt(input) << (shift * 8);
         }
 
         return val;
     }
 
-    private int readInt20() {
-        checkEOS(3);
-        var a = readUnsignedInt();
-        var b = readUnsignedInt();
-        var c = readUnsignedInt();
+    private int readInt20(@NonNull ByteBuffer input) {
+        checkEOS(input, 3);
+        var a = readUnsignedInt(input);
+        var b = readUnsignedInt(input);
+        var c = readUnsignedInt(input);
         return ((a & 15) << 16) + (b << 8) + c;
     }
 
-    private @NonNull String readPacked8(int tag) {
-        var startByte = readByte();
-
-        final var value = new StringBuilder();
-        for (var i = 0; i < (startByte & 127); i++) {
-            var curByte = readByte();
-            value.append(String.valueOf(Character.toChars(unpackByte(tag, ((curByte & 0xf0)) >> 4))));
-            value.append(String.valueOf(Character.toChars(unpackByte(tag, (curByte & 0x0f)))));
+    private @NonNull String readPacked8(@NonNull ByteBuffer input, int tag) {
+        var packing = BinaryTag.forData(tag);
+        var startByte = readUnsignedInt(input);
+        var length = startByte & 127;
+        checkEOS(input, length);
+
+        var value = new byte[length * 2];
+        for (var i = 0; i < length; i++) {
+            var curByte = readUnsignedInt(input);
+            value[i * 2] = (byte) unpackByte(packing, curByte >> 4);
+            value[i * 2 + 1] = (byte) unpackByte(packing, curByte & 0x0f);
         }
 
-        return startByte >> 7 != 0 ? value.substring(0, value.length() - 1) : value.toString();
+        return new String(value, 0, (startByte & 128) != 0 ? value.length - 1 : value.length, StandardCharsets.ISO_8859_1);
     }
 
-    private @NonNull BinaryArray readBytes(int n) {
-        checkEOS(n);
-        var byteArray = buffer.slice(index, index + n);
-        index += n;
-        return byteArray;
+    private @NonNull BinaryArray readBytes(@NonNull ByteBuffer input, int n) {
+        checkEOS(input, n);
+        if (!input.hasArray()) {
+            var result = new byte[n];
+            input.get(result);
+            return BinaryArray.forArray(result);
+        }
+
+        var result = BinaryArray.forArray(input.array(), input.arrayOffset() + input.position(), n);
+        input.position(input.position() + n);
+        return result;
     }
 
-    private byte readByte() {
-        checkEOS(1);
-        return buffer.at(index++);
+    private byte readByte(@NonNull ByteBuffer input) {
+        checkEOS(input, 1);
+        return input.get();
     }
 
-    private int readUnsignedInt() {
-        return Byte.toUnsignedInt(readByte());
+    private int readUnsignedInt(@NonNull ByteBuffer input) {
+        return Byte.toUnsignedInt(readByte(input));
     }
 
     private boolean isListTag(int tag) {
@@ -125,20 +195,18 @@ public class BinaryDecoder {
         return tag == BinaryTag.BINARY_8.data() || tag == BinaryTag.BINARY_20.data() || tag == BinaryTag.BINARY_32.data();
     }
 
-    private int readListSize(int data) {
+    private int readListSize(@NonNull ByteBuffer input, int data) {
         return switch (BinaryTag.forData(data)) {
             case LIST_EMPTY -> 0;
-            case LIST_8 -> readUnsignedInt();
-            case LIST_16 -> readInt(2);
+            case LIST_8 -> readUnsignedInt(input);
+            case LIST_16 -> readInt(input, 2);
             default -> throw new IllegalStateException("BinaryReader#readListSize: unexpected tag: " + data);
         };
     }
 
-    private @NonNull String readStringFromCharacters(int length) {
-        checkEOS(length);
-        var value = buffer.slice(index, index + length);
-        index += length;
-        return value.toString();
+    private @NonNull String readStringFromCharacters(@NonNull ByteBuffer input, int length) {
+        var bytes = readBytes(input, length);
+        return new String(bytes.array(), bytes.offset(), bytes.size(), StandardCharsets.UTF_8);
     }
 
     private String getToken(int index) {
@@ -148,70 +216,88 @@ public class BinaryDecoder {
 
     private String getDoubleToken(int index1, int index2) {
         var n = 256 * index1 + index2;
-        Validate.isTrue(n >= 0 && n <= BinaryTokens.DOUBLE_BYTE.size(), "Unexpected value: " + n);
+        Validate.isTrue(n >= 0 && n < BinaryTokens.DOUBLE_BYTE.size(), "Unexpected value: " + n);
         return BinaryTokens.DOUBLE_BYTE.get(n);
     }
 
-    private @NonNull String readString(int data) {
+    private @NonNull String readString(@NonNull ByteBuffer input, int data) {
         return data >= 3 && data <= 235 ? getToken(data) : switch (BinaryTag.forData(data)) {
-            case DICTIONARY_0, DICTIONARY_1, DICTIONARY_2, DICTIONARY_3 -> getDoubleToken(data - BinaryTag.DICTIONARY_0.data(), readByte());
-            case BINARY_8 -> readStringFromCharacters(readByte());
-            case BINARY_20 -> readStringFromCharacters(readInt20());
-            case BINARY_32 -> readStringFromCharacters(readInt(4));
-            case JID_PAIR -> "%s@%s".formatted(readString(readUnsignedInt()), readString(readUnsignedInt()));
-            case NIBBLE_8, HEX_8 -> readPacked8(data);
+            case DICTIONARY_0, DICTIONARY_1, DICTIONARY_2, DICTIONARY_3 -> getDoubleToken(data - BinaryTag.DICTIONARY_0.data(), readUnsignedInt(input));
+            case BINARY_8 -> readStringFromCharacters(input, readUnsignedInt(input));
+            case BINARY_20 -> readStringFromCharacters(input, readInt20(input));
+            case BINARY_32 -> readStringFromCharacters(input, readInt(input, 4));
+            case JID_PAIR -> readString(input, readUnsignedInt(input)) + "@" + readString(input, readUnsignedInt(input));
+            case NIBBLE_8, HEX_8 -> readPacked8(input, data);
             default -> throw new IllegalStateException("BinaryReader#readString: unexpected tag: " + data);
         };
     }
 
-    @SneakyThrows
-    private Map<String, String> readAttributes(int n) {
-        return IntStream.range(0, n).boxed().collect(Collectors.toMap(x -> readString(readUnsignedInt()), x -> readString(readUnsignedInt()), (a, b) -> b, HashMap::new));
+    private void readNode(@NonNull ByteBuffer input, @NonNull BinaryNodeHandler handler) {
+        var descriptions = new String[Math.min(maxDepth, 8)];
+        var remainingChildren = new int[descriptions.length];
+        var depth = 0;
+        var nodes = 0;
+        do {
+            Validate.isTrue(++nodes <= maxNodes, "Cannot decode node: more than %s nodes", maxNodes);
+            Validate.isTrue(depth < maxDepth, "Cannot decode node: deeper than %s levels", maxDepth);
+            var listSize = readListSize(input, readUnsignedInt(input));
+            Validate.isTrue(listSize != 0, "List size is empty");
+
+            var descriptionTag = readUnsignedInt(input);
+            Validate.isTrue(descriptionTag != BinaryTag.STREAM_END.data(), "Unexpected stream end");
+
+            var description = readString(input, descriptionTag);
+            var attributes = (listSize - 1) >> 1;
+            handler.onNodeStart(description, attributes);
+            for (var i = 0; i < attributes; i++) {
+                var key = readString(input, readUnsignedInt(input));
+                handler.onAttribute(key, readString(input, readUnsignedInt(input)));
+            }
+
+            var children = listSize % 2 == 0 ? readContent(input, handler, description) : 0;
+            if (children > 0) {
+                if (depth == descriptions.length) {
+                    descriptions = Arrays.copyOf(descriptions, Math.min(maxDepth, depth * 2));
+                    remainingChildren = Arrays.copyOf(remainingChildren, descriptions.length);
+                }
+
+                descriptions[depth] = description;
+                remainingChildren[depth++] = children;
+                continue;
+            }
+
+            handler.onNodeEnd(description);
+            while (depth > 0 && --remainingChildren[depth - 1] == 0) {
+                handler.onNodeEnd(descriptions[--depth]);
+                descriptions[depth] = null;
+            }
+        } while (depth > 0);
     }
 
-    @SneakyThrows
-    private @NonNull Node readNode() {
-        var listSize = readListSize(readUnsignedInt());
-        Validate.isTrue(listSize != 0, "List size is empty");
-
-        var descriptionTag = readUnsignedInt();
-        Validate.isTrue(descriptionTag != BinaryTag.STREAM_END.data(), "Unexpected stream end");
-
-        var description = readString(descriptionTag);
-        var attrs = readAttributes((listSize - 1) >> 1);
-        if (listSize % 2 != 0) {
-            return new Node(description, attrs, null);
+    private int readContent(@NonNull ByteBuffer input, @NonNull BinaryNodeHandler handler, @NonNull String description) {
+        var tag = readUnsignedInt(input);
+        if (!isListTag(tag)) {
+            handler.onContent(isBinaryTag(tag) ? parseMessage(input, description, tag) : readString(input, tag));
+            return 0;
         }
 
-        var tag = readUnsignedInt();
-        return new Node(description, attrs, isListTag(tag) ? readList(tag) : isBinaryTag(tag) ? parseMessage(description, tag) : readString(tag));
+        var size = readListSize(input, tag);
+        handler.onChildrenStart(size);
+        return size;
     }
 
-    @SneakyThrows
-    private @NonNull Object parseMessage(@NonNull String description, int tag) {
+    private @NonNull Object parseMessage(@NonNull ByteBuffer input, @NonNull String description, int tag) {
         var data = switch (BinaryTag.forData(tag)) {
-            case BINARY_8 -> readBytes(readUnsignedInt());
-            case BINARY_20 -> readBytes(readInt20());
-            case BINARY_32 -> readBytes(readInt(4));
+            case BINARY_8 -> readBytes(input, readUnsignedInt(input));
+            case BINARY_20 -> readBytes(input, readInt20(input));
+            case BINARY_32 -> readBytes(input, readInt(input, 4));
             default -> throw new IllegalStateException("BinaryReader#readNode: unexpected tag: " + tag);
         };
 
-        return description.equals("message") ? decodeMessage(data) : data.toString();
-    }
-
-    private @NonNull MessageInfo decodeMessage(@NonNull BinaryArray data) throws IOException {
-        try {
-            return ProtobufDecoder.forType(MessageInfo.class).decode(data.data());
-        } catch (RuntimeException ex){
-            throw new IllegalArgumentException("Cannot deserialize %s".formatted(ProtobufDecoder.forType(MessageInfo.class).decodeAsJson(data.data())), ex);
-        }
-    }
-
-    private @NonNull List<Node> readList(int tag) {
-        return IntStream.range(0, readListSize(tag)).mapToObj(e -> readNode()).toList();
+        return description.equals("message") ? new LazyMessageInfo(data.array(), data.offset(), data.size()) : data.toString();
     }
 
-    private void checkEOS(int length) {
-        Validate.isTrue(index + length <= buffer.size(), "End of stream!");
+    private void checkEOS(@NonNull ByteBuffer input, int length) {
+        Validate.isTrue(length >= 0 && length <= input.remaining(), "End of stream!");
     }
 }
\ No newline at end of file
@@ -7,62 +7,197 @@ import it.auties.whatsapp4j.utils.internal.Validate;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 
-import java.util.ArrayList;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.IntStream;
 
 /**
  * A class used to encode a WhatsappNode and then send it to WhatsappWeb's WebSocket.
  * To decode a message use instead {@link BinaryDecoder}.
- *
- * @param cache the message to encode
+ * The bytes are written in a growable array of primitives that is reused between calls to {@link BinaryEncoder#encodeMessage(Node)}, or straight into the array backing the ByteBuffer passed to {@link BinaryEncoder#encodeMessage(Node, ByteBuffer)}.
+ * This class is not thread safe, an instance should not be shared by multiple concurrent threads: use {@link BinaryEncoder#forCurrentThread()} instead.
  */
-public record BinaryEncoder(@NonNull List<Byte> cache) {
+public class BinaryEncoder {
+    /**
+     * The encoders pooled for each thread
+     */
+    private static final ThreadLocal<BinaryEncoder> POOL = ThreadLocal.withInitial(BinaryEncoder::new);
+
+    /**
+     * The default initial capacity of the buffer
+     */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * The maximum capacity that the buffer retains between two messages, bigger buffers used to encode media are dropped
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    /**
+     * The buffer used to encode the message
+     */
+    private byte @NonNull [] buffer;
+
+    /**
+     * The number of bytes written in {@link BinaryEncoder#buffer}, or the index of the next byte to write if {@link BinaryEncoder#buffer} belongs to a caller-supplied ByteBuffer
+     */
+    private int size;
+
+    /**
+     * The index past the last byte that can be written in {@link BinaryEncoder#buffer} if it belongs to a caller-supplied ByteBuffer, or -1 if it can grow
+     */
+    private int limit = -1;
+
     /**
      * Constructs a new empty {@link BinaryEncoder}
      */
     public BinaryEncoder() {
-        this(new ArrayList<>());
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new empty {@link BinaryEncoder} whose buffer can initially hold {@code initialCapacity} bytes
+     *
+     * @param initialCapacity the initial capacity of the buffer, the buffer grows automatically if needed
+     */
+    public BinaryEncoder(int initialCapacity) {
+        Validate.isTrue(initialCapacity >= 0, "Cannot create encoder: illegal capacity %s", initialCapacity);
+        this.buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Returns the encoder pooled for the calling thread.
+     * The returned instance must not be shared with other threads.
+     *
+     * @return a non null encoder that is only used by the current thread
+     */
+    public static @NonNull BinaryEncoder forCurrentThread() {
+        return POOL.get();
+    }
+
+    /**
+     * Encodes {@code message} as the content of a message node.
+     * This is usually the most expensive part of encoding a message: the result can be computed ahead of time, on any thread, and then used as the content of a {@link Node}.
+     *
+     * @param message the message to encode
+     * @return a new array of bytes
+     */
+    @SneakyThrows
+    public static byte @NonNull [] encodeMessageInfo(@NonNull MessageInfo message) {
+        return ProtobufEncoder.encode(message);
     }
 
     /**
      * Encodes {@code node} as an array of bytes
      *
+     * @param node the node to encode
      * @return a new array of bytes
      */
     public byte @NonNull [] encodeMessage(@NonNull Node node) {
-        cache.clear();
-        return writeNode(node);
+        encode(node);
+        var result = Arrays.copyOf(buffer, size);
+        release();
+        return result;
     }
 
-    private byte @NonNull [] writeNode(@NonNull Node node) {
+    /**
+     * Encodes {@code node} and writes the result in {@code output}, starting at its current position.
+     * If {@code output} is backed by an accessible array, the bytes are written straight into it, otherwise they are encoded in the internal buffer and then copied.
+     *
+     * @param node   the node to encode
+     * @param output the buffer where the encoded message should be written
+     * @return the number of bytes that were written
+     * @throws BufferOverflowException if {@code output} doesn't have enough remaining space, in this case its position is left unchanged though the bytes after it may have been overwritten
+     */
+    public int encodeMessage(@NonNull Node node, @NonNull ByteBuffer output) {
+        if (!output.hasArray()) {
+            encode(node);
+            output.put(buffer, 0, size);
+            var written = size;
+            release();
+            return written;
+        }
+
+        var internal = buffer;
+        var start = output.arrayOffset() + output.position();
+        try {
+            this.buffer = output.array();
+            this.size = start;
+            this.limit = output.arrayOffset() + output.limit();
+            writeNode(node);
+            var written = size - start;
+            output.position(output.position() + written);
+            return written;
+        } finally {
+            this.buffer = internal;
+            this.size = 0;
+            this.limit = -1;
+        }
+    }
+
+    private void encode(@NonNull Node node) {
+        size = 0;
+        writeNode(node);
+    }
+
+    private void release() {
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[DEFAULT_CAPACITY];
+        }
+    }
+
+    private void writeNode(@NonNull Node node) {
         writeListStart(2 * node.attrs().size() + 1 + (node.content() != null ? 1 : 0));
-        writeString(node.description(), false);
+        writeString(node.description());
         writeAttributes(node.attrs());
         writeContent(node.content());
-        return toByteArray();
+    }
+
+    private void ensureCapacity(int required) {
+        var minCapacity = size + required;
+        if (limit >= 0) {
+            if (minCapacity > limit || minCapacity < 0) {
+                throw new BufferOverflowException();
+            }
+
+            return;
+        }
+
+        if (minCapacity <= buffer.length) {
+            return;
+        }
+
+        Validate.isTrue(minCapacity > 0, "Cannot encode message: the message is too big", IllegalStateException.class);
+        buffer = Arrays.copyOf(buffer, Math.max(minCapacity, Math.min(buffer.length * 2, Integer.MAX_VALUE - 8)));
     }
 
     private void pushUnsignedInt(int value) {
-        cache.add((byte) (value & 0xff));
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
     }
 
     private void pushInt4(int value) {
-        IntStream.range(0, 4).map(i -> 3 - i).mapToObj(curShift -> (byte) ((value >> (curShift * 8)) & 0xff)).forEach(cache::add);
+        ensureCapacity(4);
+        buffer[size++] = (byte) (value >> 24);
+        buffer[size++] = (byte) (value >> 16);
+        buffer[size++] = (byte) (value >> 8);
+        buffer[size++] = (byte) value;
     }
 
     private void pushInt20(int value) {
-        pushUnsignedInts(((value >> 16) & 0x0f), ((value >> 8) & 0xff), (value & 0xff));
-    }
-
-    private void pushUnsignedInts(int @NonNull ... ints) {
-        Arrays.stream(ints).mapToObj(entry -> (byte) entry).forEachOrdered(cache::add);
+        ensureCapacity(3);
+        buffer[size++] = (byte) ((value >> 16) & 0x0f);
+        buffer[size++] = (byte) (value >> 8);
+        buffer[size++] = (byte) value;
     }
 
-    private void pushString(@NonNull String str) {
-        pushUnsignedInts(toUnsignedIntArray(str.getBytes()));
+    private void pushBytes(byte @NonNull [] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
     }
 
     private void writeByteLength(int length) {
@@ -76,8 +211,9 @@ public record BinaryEncoder(@NonNull List<Byte> cache) {
     }
 
     private void writeStringRaw(@NonNull String string) {
-        writeByteLength(string.length());
-        pushString(string);
+        var bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeByteLength(bytes.length);
+        pushBytes(bytes);
     }
 
     private void writeJid(String left, @NonNull String right) {
@@ -88,7 +224,7 @@ public record BinaryEncoder(@NonNull List<Byte> cache) {
         }
 
         writeToken(BinaryTag.LIST_EMPTY.data());
-        writeString(right, false);
+        writeString(right);
     }
 
     private void writeToken(int token) {
@@ -96,24 +232,19 @@ public record BinaryEncoder(@NonNull List<Byte> cache) {
         pushUnsignedInt(token);
     }
 
-    private void writeString(@NonNull String token, boolean i) {
-        var tokenIndex = BinaryTokens.SINGLE_BYTE.indexOf(token);
-        if (!i && token.equals("s.whatsapp.net")) {
+    private void writeString(@NonNull String token) {
+        var tokenIndex = BinaryTokens.SINGLE_BYTE_INDEX.get(token);
+        if (tokenIndex != null) {
             writeToken(tokenIndex);
             return;
         }
 
-        if (tokenIndex >= 0) {
-            if (tokenIndex < BinaryTag.SINGLE_BYTE_MAX.data()) {
-                writeToken(tokenIndex);
-                return;
-            }
-
-            var overflow = tokenIndex - BinaryTag.SINGLE_BYTE_MAX.data();
-            var dictionaryIndex = overflow >> 8;
-            Validate.isTrue(dictionaryIndex >= 0 && dictionaryIndex <= 3, "Token out of range!");
+        var doubleTokenIndex = BinaryTokens.DOUBLE_BYTE_INDEX.get(token);
+        if (doubleTokenIndex != null) {
+            var dictionaryIndex = doubleTokenIndex >> 8;
+            Validate.isTrue(dictionaryIndex <= 3, "Token out of range!");
             writeToken(BinaryTag.DICTIONARY_0.data() + dictionaryIndex);
-            writeToken(overflow % 256);
+            writeToken(doubleTokenIndex & 0xff);
             return;
         }
 
@@ -126,8 +257,9 @@ public record BinaryEncoder(@NonNull List<Byte> cache) {
         writeJid(token.substring(0, jidSepIndex), token.substring(jidSepIndex + 1));
     }
 
-    private void writeStrings(@NonNull String... tokens) {
-        Arrays.stream(tokens).forEach(token -> writeString(token, false));
+    private void writeStrings(@NonNull String left, @NonNull String right) {
+        writeString(left);
+        writeString(right);
     }
 
     private void writeAttributes(@NonNull Map<String, String> attrs) {
@@ -136,7 +268,14 @@ public record BinaryEncoder(@NonNull List<Byte> cache) {
 
     private void writeListStart(int listSize) {
         var tag = listSize == 0 ? BinaryTag.LIST_EMPTY : listSize < 256 ? BinaryTag.LIST_8 : BinaryTag.LIST_16;
-        pushUnsignedInts(tag.data(), listSize);
+        pushUnsignedInt(tag.data());
+        switch (tag) {
+            case LIST_8 -> pushUnsignedInt(listSize);
+            case LIST_16 -> {
+                pushUnsignedInt(listSize >> 8);
+                pushUnsignedInt(listSize);
+            }
+        }
     }
 
     @SneakyThrows
@@ -146,7 +285,7 @@ public record BinaryEncoder(@NonNull List<Byte> cache) {
         }
 
         if (content instanceof String contentAsString) {
-            writeString(contentAsString, true);
+            writeString(contentAsString);
             return;
         }
 
@@ -158,9 +297,15 @@ public record BinaryEncoder(@NonNull List<Byte> cache) {
         }
 
         if (content instanceof MessageInfo contentAsMessage) {
-            var data = ProtobufEncoder.encode(contentAsMessage);
+            var data = encodeMessageInfo(contentAsMessage);
             writeByteLength(data.length);
-            pushUnsignedInts(toUnsignedIntArray(data));
+            pushBytes(data);
+            return;
+        }
+
+        if (content instanceof byte[] contentAsBytes) {
+            writeByteLength(contentAsBytes.length);
+            pushBytes(contentAsBytes);
             return;
         }
 
@@ -170,14 +315,4 @@ public record BinaryEncoder(@NonNull List<Byte> cache) {
     private boolean validateList(@NonNull List<?> list) {
         return list.stream().map(Object::getClass).allMatch(Node.class::isAssignableFrom);
     }
-
-    private byte @NonNull [] toByteArray() {
-        var array = new byte[cache.size()];
-        IntStream.range(0, cache.size()).forEachOrdered(x -> array[x] = cache.get(x));
-        return array;
-    }
-
-    private int @NonNull [] toUnsignedIntArray(byte @NonNull [] input) {
-        return IntStream.range(0, input.length).map(x -> Byte.toUnsignedInt(input[x])).toArray();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package it.auties.whatsapp4j.binary;
+
+import it.auties.whatsapp4j.protobuf.model.Node;
+import it.auties.whatsapp4j.utils.internal.Validate;
+import lombok.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A {@link BinaryNodeHandler} that builds the {@link Node} described by the events it receives.
+ * An instance should only be used to build one node.
+ */
+public final class BinaryNodeBuilder implements BinaryNodeHandler {
+    /**
+     * The nodes that were started and not ended yet
+     */
+    private final @NonNull Deque<PendingNode> pending = new ArrayDeque<>();
+
+    /**
+     * The root node, null until it ends
+     */
+    private Node result;
+
+    @Override
+    public void onNodeStart(@NonNull String description, int attributes) {
+        Validate.isTrue(result == null, "Cannot build node: the root node already ended", IllegalStateException.class);
+        pending.push(new PendingNode(description, new BinaryAttributes(attributes)));
+    }
+
+    @Override
+    public void onAttribute(@NonNull String key, @NonNull String value) {
+        current().attributes.put(key, value);
+    }
+
+    @Override
+    public void onChildrenStart(int size) {
+        current().children = new ArrayList<>(size);
+    }
+
+    @Override
+    public void onContent(@NonNull Object content) {
+        current().content = content;
+    }
+
+    @Override
+    public void onNodeEnd(@NonNull String description) {
+        var node = pending.pop().toNode();
+        var parent = pending.peek();
+        if (parent == null) {
+            result = node;
+            return;
+        }
+
+        Validate.isTrue(parent.children != null, "Cannot build node: %s has no children", IllegalStateException.class, parent.description);
+        parent.children.add(node);
+    }
+
+    /**
+     * Returns the node that was built
+     *
+     * @throws IllegalStateException if the root node didn't end yet
+     * @return a non null {@link Node}
+     */
+    public @NonNull Node result() {
+        Validate.isTrue(result != null, "Cannot build node: the root node didn't end yet", IllegalStateException.class);
+        return result;
+    }
+
+    private @NonNull PendingNode current() {
+        var current = pending.peek();
+        Validate.isTrue(current != null, "Cannot build node: no node was started", IllegalStateException.class);
+        return current;
+    }
+
+    private static final class PendingNode {
+        private final @NonNull String description;
+        private final @NonNull BinaryAttributes attributes;
+        private List<Node> children;
+        private Object content;
+
+        private PendingNode(@NonNull String description, @NonNull BinaryAttributes attributes) {
+            this.description = description;
+            this.attributes = attributes;
+        }
+
+        private @NonNull Node toNode() {
+            return new Node(description, attributes, children != null ? Collections.unmodifiableList(children) : content);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package it.auties.whatsapp4j.binary;
+
+import it.auties.whatsapp4j.protobuf.model.Node;
+import lombok.NonNull;
+
+/**
+ * A callback interface used by {@link BinaryDecoder} to stream the content of a decoded {@link Node} without building the whole tree.
+ * For every node the events are emitted in the following order:
+ * <ul>
+ * <li>{@link BinaryNodeHandler#onNodeStart(String, int)}</li>
+ * <li>{@link BinaryNodeHandler#onAttribute(String, String)}, once for each attribute</li>
+ * <li>either {@link BinaryNodeHandler#onChildrenStart(int)} followed by the events of each child node or {@link BinaryNodeHandler#onContent(Object)}, if the node has any content</li>
+ * <li>{@link BinaryNodeHandler#onNodeEnd(String)}</li>
+ * </ul>
+ * To build a {@link Node} from these events use {@link BinaryNodeBuilder}.
+ */
+public interface BinaryNodeHandler {
+    /**
+     * Called when a new node starts
+     *
+     * @param description the description of the node
+     * @param attributes  the number of attributes that the node declares
+     */
+    default void onNodeStart(@NonNull String description, int attributes) {
+
+    }
+
+    /**
+     * Called for each attribute of the current node
+     *
+     * @param key   the key of the attribute
+     * @param value the value of the attribute
+     */
+    default void onAttribute(@NonNull String key, @NonNull String value) {
+
+    }
+
+    /**
+     * Called when the content of the current node is a list of nodes, before the events of said nodes
+     *
+     * @param size the number of child nodes
+     */
+    default void onChildrenStart(int size) {
+
+    }
+
+    /**
+     * Called when the content of the current node is not a list of nodes
+     *
+     * @param content a {@link String} or a {@link it.auties.whatsapp4j.protobuf.info.LazyMessageInfo}
+     */
+    default void onContent(@NonNull Object content) {
+
+    }
+
+    /**
+     * Called when the current node ends, after all of its attributes and of its content
+     *
+     * @param description the description of the node
+     */
+    default void onNodeEnd(@NonNull String description) {
+
+    }
+}
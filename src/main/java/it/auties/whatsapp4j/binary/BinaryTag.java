@@ -5,8 +5,6 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.experimental.Accessors;
 
-import java.util.Arrays;
-
 /**
  * The constants of this enumerated type describe the various tags used by an encrypted {@link BinaryArray}.
  * These tags were extracted from JS code found at https://web.whatsapp.com/.
@@ -33,6 +31,19 @@ public enum BinaryTag {
     SINGLE_BYTE_MAX (256),
     PACKED_MAX(254);
 
+    /**
+     * The tags indexed by their data, if two tags share the same data the one declared first is used
+     */
+    private static final BinaryTag[] BY_DATA = new BinaryTag[257];
+
+    static {
+        for (var entry : values()) {
+            if (BY_DATA[entry.data()] == null) {
+                BY_DATA[entry.data()] = entry;
+            }
+        }
+    }
+
     @Getter
     private final int data;
 
@@ -44,6 +55,11 @@ public enum BinaryTag {
      * @return the matching {@link BinaryTag}
      */
     public static @NonNull BinaryTag forData(int data){
-        return Arrays.stream(values()).filter(entry -> entry.data() == data).findAny().orElseThrow(() -> new IllegalArgumentException("Tag#forData: cannot convert %s to any tag".formatted(data)));
+        var result = data >= 0 && data < BY_DATA.length ? BY_DATA[data] : null;
+        if (result == null) {
+            throw new IllegalArgumentException("Tag#forData: cannot convert %s to any tag".formatted(data));
+        }
+
+        return result;
     }
 }
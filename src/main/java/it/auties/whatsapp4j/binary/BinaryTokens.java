@@ -4,7 +4,10 @@ import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The constants of this utility class describe the various tokens used by WhatsappWeb's WebSocket.
@@ -22,4 +25,26 @@ public class BinaryTokens {
      * Single byte tokens
      */
     public final List<String> SINGLE_BYTE = Arrays.asList(null, null, null, "200", "400", "404", "500", "501", "502", "action", "add", "after", "archive", "author", "available", "battery", "before", "body", "broadcast", "chat", "clear", "code", "composing", "contacts", "count", "create", "debug", "delete", "demote", "duplicate", "encoding", "error", "false", "filehash", "from", "g.us", "group", "groups_v2", "height", "id", "image", "in", "index", "invis", "item", "jid", "kind", "last", "leave", "live", "log", "media", "message", "mimetype", "missing", "modify", "name", "notification", "notify", "out", "owner", "participant", "paused", "picture", "played", "presence", "preview", "promote", "query", "raw", "read", "receipt", "received", "recipient", "recording", "relay", "remove", "response", "resume", "retry", "s.whatsapp.net", "seconds", "set", "size", "status", "subject", "subscribe", "t", "text", "to", "true", "type", "unarchive", "unavailable", "url", "user", "value", "web", "width", "mute", "read_only", "admin", "creator", "short", "update", "powersave", "checksum", "epoch", "block", "previous", "409", "replaced", "reason", "spam", "modify_tag", "message_info", "delivery", "emoji", "title", "description", "canonical-url", "matched-text", "star", "unstar", "media_key", "filename", "identity", "unread", "page", "page_count", "search", "media_message", "security", "call_log", "profile", "ciphertext", "invite", "gif", "vcard", "frequent", "privacy", "blacklist", "whitelist", "verify", "location", "document", "elapsed", "revoke_invite", "expiration", "unsubscribe", "disable", "vname", "old_jid", "new_jid", "announcement", "locked", "prop", "label", "color", "call", "offer", "call-jid", "quick_reply", "sticker", "pay_t", "accept", "reject", "sticker_pack", "invalid", "canceled", "missed", "connected", "result", "audio", "video", "recent");
+
+    /**
+     * Index of each single byte token, built once from {@link BinaryTokens#SINGLE_BYTE}
+     */
+    public final @NonNull Map<String, Integer> SINGLE_BYTE_INDEX = indexTokens(SINGLE_BYTE);
+
+    /**
+     * Index of each double byte token, built once from {@link BinaryTokens#DOUBLE_BYTE}
+     */
+    public final @NonNull Map<String, Integer> DOUBLE_BYTE_INDEX = indexTokens(DOUBLE_BYTE);
+
+    private @NonNull Map<String, Integer> indexTokens(@NonNull List<String> tokens) {
+        var index = new HashMap<String, Integer>(tokens.size() * 2);
+        for (var position = 0; position < tokens.size(); position++) {
+            var token = tokens.get(position);
+            if (token != null) {
+                index.putIfAbsent(token, position);
+            }
+        }
+
+        return Collections.unmodifiableMap(index);
+    }
 }
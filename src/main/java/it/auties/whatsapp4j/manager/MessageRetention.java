@@ -0,0 +1,157 @@
+package it.auties.whatsapp4j.manager;
+
+import it.auties.whatsapp4j.protobuf.chat.Chat;
+import it.auties.whatsapp4j.protobuf.info.MessageInfo;
+import it.auties.whatsapp4j.utils.WhatsappUtils;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * This class enforces the message retention policy described by a {@link WhatsappConfiguration} on the chats held by {@link WhatsappDataManager}.
+ * The limits for a single chat, that is {@link WhatsappConfiguration#maxMessagesPerChat()} and {@link WhatsappConfiguration#maxMessageAge()}, are enforced every time a message is added to said chat.
+ * The global limit, that is {@link WhatsappConfiguration#maxMessages()}, is enforced periodically by evicting the oldest messages of the least recently active chats first.
+ * Each evicted message is passed to {@link WhatsappConfiguration#evictedMessageHandler()}, exceptions thrown by said handler are logged and don't stop the eviction.
+ */
+@Log
+@RequiredArgsConstructor
+@Accessors(fluent = true)
+public class MessageRetention {
+    /**
+     * The configuration that describes the retention policy
+     */
+    private final @NonNull @Getter WhatsappConfiguration configuration;
+
+    /**
+     * The time in milliseconds since {@link java.time.Instant#EPOCH} when each chat, identified by its jid, was last active
+     */
+    private final @NonNull Map<String, Long> lastActivity = new ConcurrentHashMap<>();
+
+    /**
+     * Marks {@code chat} as the most recently active chat
+     *
+     * @param chat the chat that received a message
+     */
+    public void touch(@NonNull Chat chat) {
+        lastActivity.put(WhatsappUtils.parseJid(chat.jid()), System.currentTimeMillis());
+    }
+
+    /**
+     * Forgets the activity of {@code chat}, this should be called when the chat is removed from memory
+     *
+     * @param chat the chat to forget
+     */
+    public void forget(@NonNull Chat chat) {
+        lastActivity.remove(WhatsappUtils.parseJid(chat.jid()));
+    }
+
+    /**
+     * Forgets the activity of every chat
+     */
+    public void clear() {
+        lastActivity.clear();
+    }
+
+    /**
+     * Evicts the messages of {@code chat} that exceed {@link WhatsappConfiguration#maxMessagesPerChat()} or {@link WhatsappConfiguration#maxMessageAge()}
+     *
+     * @param chat the chat to trim
+     */
+    public void trim(@NonNull Chat chat) {
+        var maxAge = configuration.maxMessageAge();
+        if (!maxAge.isZero() && !maxAge.isNegative()) {
+            var threshold = Instant.now().minus(maxAge).getEpochSecond();
+            List.copyOf(chat.messages().between(Long.MIN_VALUE, threshold - 1))
+                    .forEach(message -> evict(chat, message));
+        }
+
+        var maxMessages = configuration.maxMessagesPerChat();
+        if (maxMessages > 0) {
+            evictOldest(chat, chat.messages().size() - maxMessages);
+        }
+    }
+
+    /**
+     * Trims each chat in {@code chats} and then, if the total number of messages exceeds {@link WhatsappConfiguration#maxMessages()},
+     * evicts the oldest messages of the least recently active chats until the budget is respected
+     *
+     * @param chats the chats to trim
+     */
+    public void trim(@NonNull Collection<Chat> chats) {
+        chats.forEach(this::trim);
+        var budget = configuration.maxMessages();
+        if (budget <= 0) {
+            return;
+        }
+
+        var total = chats.stream().mapToLong(chat -> chat.messages().size()).sum();
+        if (total <= budget) {
+            return;
+        }
+
+        var candidates = chats.stream()
+                .sorted(Comparator.comparingLong(this::lastActivity))
+                .toList();
+        for (var chat : candidates) {
+            total -= evictOldest(chat, total - budget);
+            if (total <= budget) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Evicts at most {@code count} of the oldest messages of {@code chat} in a single pass over its messages
+     *
+     * @param chat  the chat to trim
+     * @param count the number of messages to evict, nothing is evicted if it isn't positive
+     * @return the number of messages that were evicted
+     */
+    private long evictOldest(@NonNull Chat chat, long count) {
+        if (count <= 0) {
+            return 0;
+        }
+
+        var oldest = chat.messages()
+                .stream()
+                .limit(count)
+                .toList();
+        var evicted = 0L;
+        for (var message : oldest) {
+            if (evict(chat, message)) {
+                evicted++;
+            }
+        }
+
+        return evicted;
+    }
+
+    private long lastActivity(@NonNull Chat chat) {
+        return lastActivity.getOrDefault(WhatsappUtils.parseJid(chat.jid()), 0L);
+    }
+
+    private boolean evict(@NonNull Chat chat, @NonNull MessageInfo message) {
+        if (!chat.messages().remove(message)) {
+            return false;
+        }
+
+        try {
+            configuration.evictedMessageHandler().accept(chat, message);
+        } catch (Throwable throwable) {
+            log.log(Level.WARNING, "WhatsappAPI: The handler of evicted messages threw an exception for message %s".formatted(message.key().id()), throwable);
+        }
+
+        return true;
+    }
+}
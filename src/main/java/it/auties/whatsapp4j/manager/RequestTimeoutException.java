@@ -0,0 +1,38 @@
+package it.auties.whatsapp4j.manager;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+import java.time.Duration;
+
+/**
+ * An exception used to signal that WhatsappWeb's WebSocket didn't send a response to a request before its timeout expired.
+ * The future associated with the request is completed exceptionally using this exception.
+ * This is an unchecked exception as it extends {@link RuntimeException}.
+ * Unchecked exceptions do not need to be declared in a throws clause.
+ */
+@Accessors(fluent = true)
+public class RequestTimeoutException extends RuntimeException {
+    /**
+     * The non null tag of the request that expired
+     */
+    private final @NonNull @Getter String tag;
+
+    /**
+     * The non null timeout that expired
+     */
+    private final @NonNull @Getter Duration timeout;
+
+    /**
+     * Constructs a new request timeout exception for a request
+     *
+     * @param tag     the tag of the request that expired
+     * @param timeout the timeout that expired
+     */
+    public RequestTimeoutException(@NonNull String tag, @NonNull Duration timeout) {
+        super("WhatsappAPI: No response was received for request %s after %s ms".formatted(tag, timeout.toMillis()));
+        this.tag = tag;
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,29 @@
+package it.auties.whatsapp4j.manager;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * An exception used to signal that the session with WhatsappWeb's WebSocket was closed before a response to a request was received.
+ * The future associated with the request is completed exceptionally using this exception.
+ * This is an unchecked exception as it extends {@link RuntimeException}.
+ * Unchecked exceptions do not need to be declared in a throws clause.
+ */
+@Accessors(fluent = true)
+public class SessionClosedException extends RuntimeException {
+    /**
+     * The non null tag of the request that was pending
+     */
+    private final @NonNull @Getter String tag;
+
+    /**
+     * Constructs a new session closed exception for a request
+     *
+     * @param tag the tag of the request that was pending
+     */
+    public SessionClosedException(@NonNull String tag) {
+        super("WhatsappAPI: The session was closed before a response was received for request %s".formatted(tag));
+        this.tag = tag;
+    }
+}
@@ -1,10 +1,15 @@
 package it.auties.whatsapp4j.manager;
 
+import it.auties.whatsapp4j.binary.BinaryDecoder;
 import it.auties.whatsapp4j.listener.WhatsappListener;
+import it.auties.whatsapp4j.media.MediaCache;
 import it.auties.whatsapp4j.media.MediaConnection;
+import it.auties.whatsapp4j.media.MediaTransport;
+import it.auties.whatsapp4j.media.MediaUploadRegistry;
 import it.auties.whatsapp4j.protobuf.chat.Chat;
 import it.auties.whatsapp4j.protobuf.chat.ChatMute;
 import it.auties.whatsapp4j.protobuf.contact.Contact;
+import it.auties.whatsapp4j.protobuf.info.LazyMessageInfo;
 import it.auties.whatsapp4j.protobuf.info.MessageInfo;
 import it.auties.whatsapp4j.protobuf.message.server.ProtocolMessage;
 import it.auties.whatsapp4j.protobuf.model.Node;
@@ -14,15 +19,19 @@ import it.auties.whatsapp4j.response.model.binary.BinaryResponseModel;
 import it.auties.whatsapp4j.response.model.common.Response;
 import it.auties.whatsapp4j.response.model.json.JsonResponse;
 import it.auties.whatsapp4j.utils.WhatsappUtils;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
 import it.auties.whatsapp4j.whatsapp.internal.WhatsappWebSocket;
 import lombok.*;
 import lombok.experimental.Accessors;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -37,28 +46,53 @@ import java.util.stream.Stream;
 @Data
 @Accessors(fluent = true)
 public class WhatsappDataManager {
-    private static final @Getter WhatsappDataManager singletonInstance = new WhatsappDataManager(Executors.newSingleThreadExecutor(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), Instant.now().getEpochSecond());
+    private static final @Getter WhatsappDataManager singletonInstance = new WhatsappDataManager(Executors.newSingleThreadExecutor(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ArrayList<>(), Instant.now().getEpochSecond());
     private final @NonNull ExecutorService requestsService;
-    private final @NonNull List<Chat> chats;
-    private final @NonNull List<Contact> contacts;
-    private final @NonNull List<Request<?, ?>> pendingRequests;
+    private final @NonNull Map<String, Chat> chats;
+    private final @NonNull Map<String, Contact> contacts;
+    private final @NonNull Map<String, Request<?, ?>> pendingRequests;
     private final @NonNull List<WhatsappListener> listeners;
     private final long initializationTimeStamp;
+    private final @NonNull LongAdder expiredRequests = new LongAdder();
     private String phoneNumberJid;
     private MediaConnection mediaConnection;
     private long tag;
+    private @Setter(AccessLevel.NONE) @NonNull WhatsappConfiguration configuration = WhatsappConfiguration.defaultOptions();
+    private @NonNull MessageRetention messageRetention = new MessageRetention(configuration);
+    private @NonNull MediaTransport mediaTransport = new MediaTransport(configuration);
+    private @NonNull MediaCache mediaCache = new MediaCache(configuration);
+    private @NonNull MediaUploadRegistry mediaUploadRegistry = new MediaUploadRegistry(configuration);
 
     /**
-     * Queries the first contact whose jid is equal to {@code jid}
+     * Returns an unmodifiable live view of the chats held in memory: it reflects every chat that is added or removed later, without copying them.
+     * Its iterators are weakly consistent, so it can be iterated while WhatsappWeb's WebSocket updates it.
+     * To add or remove a chat use {@link WhatsappDataManager#addChat(Chat)} and {@link WhatsappDataManager#removeChat(Chat)}, as mutating this view throws an {@link UnsupportedOperationException}.
+     *
+     * @return a non null Collection of chats
+     */
+    public @NonNull Collection<Chat> chats() {
+        return Collections.unmodifiableCollection(chats.values());
+    }
+
+    /**
+     * Returns an unmodifiable live view of the contacts held in memory: it reflects every contact that is added or removed later, without copying them.
+     * Its iterators are weakly consistent, so it can be iterated while WhatsappWeb's WebSocket updates it.
+     * To add or remove a contact use {@link WhatsappDataManager#addContact(Contact)} and {@link WhatsappDataManager#removeContact(Contact)}, as mutating this view throws an {@link UnsupportedOperationException}.
+     *
+     * @return a non null Collection of contacts
+     */
+    public @NonNull Collection<Contact> contacts() {
+        return Collections.unmodifiableCollection(contacts.values());
+    }
+
+    /**
+     * Queries the contact whose jid is equal to {@code jid}
      *
      * @param jid the jid to search
-     * @return a non empty Optional containing the first result if any is found otherwise an empty Optional empty
+     * @return a non empty Optional containing the result if it is found otherwise an empty Optional empty
      */
     public @NonNull Optional<Contact> findContactByJid(@NonNull String jid) {
-        return Collections.synchronizedList(contacts)
-                .stream()
-                .filter(e -> Objects.equals(e.jid(), WhatsappUtils.parseJid(jid)))
-                .findAny();
+        return Optional.ofNullable(contacts.get(WhatsappUtils.parseJid(jid)));
     }
 
     /**
@@ -68,7 +102,7 @@ public class WhatsappDataManager {
      * @return a non empty Optional containing the first result if any is found otherwise an empty Optional empty
      */
     public @NonNull Optional<Contact> findContactByName(@NonNull String name) {
-        return Collections.synchronizedList(contacts)
+        return contacts.values()
                 .stream()
                 .filter(e -> Objects.equals(e.bestName().orElse(null), name))
                 .findAny();
@@ -81,23 +115,20 @@ public class WhatsappDataManager {
      * @return a Set containing every result
      */
     public @NonNull Set<Contact> findContactsByName(@NonNull String name) {
-        return Collections.synchronizedList(contacts)
+        return contacts.values()
                 .stream()
                 .filter(e -> Objects.equals(e.bestName().orElse(null), name))
                 .collect(Collectors.toUnmodifiableSet());
     }
 
     /**
-     * Queries the first chat whose jid is equal to {@code jid}
+     * Queries the chat whose jid is equal to {@code jid}
      *
      * @param jid the jid to search
-     * @return a non empty Optional containing the first result if any is found otherwise an empty Optional empty
+     * @return a non empty Optional containing the result if it is found otherwise an empty Optional empty
      */
     public @NonNull Optional<Chat> findChatByJid(@NonNull String jid) {
-        return Collections.synchronizedList(chats)
-                .stream()
-                .filter(e -> Objects.equals(e.jid(), WhatsappUtils.parseJid(jid)))
-                .findAny();
+        return Optional.ofNullable(chats.get(WhatsappUtils.parseJid(jid)));
     }
 
     /**
@@ -108,7 +139,7 @@ public class WhatsappDataManager {
      * @return a non empty Optional containing the result if it is found otherwise an empty Optional empty
      */
     public @NonNull Optional<MessageInfo> findMessageById(@NonNull Chat chat, @NonNull String id) {
-        return chat.messages().stream().filter(e -> Objects.equals(e.key().id(), id)).findAny();
+        return chat.messages().findById(id);
     }
 
     /**
@@ -128,7 +159,7 @@ public class WhatsappDataManager {
      * @return a non empty Optional containing the first result if any is found otherwise an empty Optional empty
      */
     public @NonNull Optional<Chat> findChatByName(@NonNull String name) {
-        return Collections.synchronizedList(chats)
+        return chats.values()
                 .stream()
                 .filter(e -> Objects.equals(e.displayName(), name))
                 .findAny();
@@ -141,74 +172,207 @@ public class WhatsappDataManager {
      * @return a Set containing every result
      */
     public @NonNull Set<Chat> findChatsByName(@NonNull String name) {
-        return Collections.synchronizedList(chats)
+        return chats.values()
                 .stream()
                 .filter(e -> Objects.equals(e.displayName(), name))
                 .collect(Collectors.toUnmodifiableSet());
     }
 
     /**
-     * Queries the first Request whose tag is equal to {@code tag}
+     * Queries the Request whose tag is equal to {@code tag}
      *
      * @param tag the tag to search
-     * @return a non empty Optional containing the first result if any is found otherwise an empty Optional empty
+     * @return a non empty Optional containing the result if it is found otherwise an empty Optional empty
      */
     public @NonNull Optional<Request<?, ?>> findPendingRequest(@NonNull String tag) {
-        return Collections.synchronizedList(pendingRequests)
-                .stream()
-                .filter(req -> req.tag().equals(tag))
-                .findAny();
+        return Optional.ofNullable(pendingRequests.get(tag));
     }
 
     /**
-     * Queries the first Request whose tag is equal to {@code messageTag} and, if any is found, resolves the request using {@code response}
+     * Registers {@code request} as pending until a response with the same tag is received
+     *
+     * @param request the request to register
+     */
+    public void addPendingRequest(@NonNull Request<?, ?> request) {
+        pendingRequests.put(request.tag(), request);
+    }
+
+    /**
+     * Removes {@code request} from the pending requests if it's still registered
+     *
+     * @param request the request to remove
+     * @return true if {@code request} was pending
+     */
+    public boolean removePendingRequest(@NonNull Request<?, ?> request) {
+        return pendingRequests.remove(request.tag(), request);
+    }
+
+    /**
+     * Removes the Request whose tag is equal to {@code messageTag} and, if any is found, resolves the request using {@code response}.
+     * As the removal is atomic, a request can only be resolved once even if the same tag is received concurrently.
      *
      * @param messageTag the tag to search
      * @param response   the response to complete the request with
      * @return true if any request matching {@code messageTag} is found
      */
     public boolean resolvePendingRequest(@NonNull String messageTag, @NonNull Response<?> response) {
-        var req = findPendingRequest(messageTag);
-        if (req.isEmpty()) {
+        var request = pendingRequests.remove(messageTag);
+        if (request == null) {
             return false;
         }
 
-        var request = req.get();
         request.complete(response);
-        pendingRequests.remove(request);
         return true;
     }
 
     /**
-     * Adds a chat in memory
+     * Removes every pending request whose timeout has elapsed and completes it exceptionally using a {@link RequestTimeoutException}.
+     * This method is called periodically by the WebSocket, though it's safe to call it from any thread.
+     *
+     * @return the number of requests that expired
+     */
+    public int expirePendingRequests() {
+        var now = System.nanoTime();
+        var expired = 0;
+        for (var request : pendingRequests.values()) {
+            if (!request.isExpired(now) || !removePendingRequest(request)) {
+                continue;
+            }
+
+            request.expire();
+            expired++;
+        }
+
+        expiredRequests.add(expired);
+        return expired;
+    }
+
+    /**
+     * Returns the number of requests that expired since this singleton was initialized
+     *
+     * @return an unsigned long
+     */
+    public long expiredRequests() {
+        return expiredRequests.sum();
+    }
+
+    /**
+     * Adds a chat in memory.
+     * If a chat with the same jid is already in memory, it is replaced.
      *
      * @param chat the chat to add
      * @return the input chat
      */
     public @NonNull Chat addChat(@NonNull Chat chat) {
-        chats.add(chat);
+        chats.put(WhatsappUtils.parseJid(chat.jid()), chat);
         return chat;
     }
 
+    /**
+     * Removes a chat from memory
+     *
+     * @param chat the chat to remove
+     * @return true if {@code chat} was in memory
+     */
+    public boolean removeChat(@NonNull Chat chat) {
+        if (!chats.remove(WhatsappUtils.parseJid(chat.jid()), chat)) {
+            return false;
+        }
+
+        messageRetention.forget(chat);
+        return true;
+    }
+
+    /**
+     * Adds a contact in memory.
+     * If a contact with the same jid is already in memory, it is replaced.
+     *
+     * @param contact the contact to add
+     * @return the contact that was previously associated with the jid of {@code contact}, if any
+     */
+    public @NonNull Optional<Contact> addContact(@NonNull Contact contact) {
+        return Optional.ofNullable(contacts.put(WhatsappUtils.parseJid(contact.jid()), contact));
+    }
+
+    /**
+     * Removes a contact from memory
+     *
+     * @param contact the contact to remove
+     * @return true if {@code contact} was in memory
+     */
+    public boolean removeContact(@NonNull Contact contact) {
+        return contacts.remove(WhatsappUtils.parseJid(contact.jid()), contact);
+    }
+
     /**
      * Returns the number of pinned chats
      *
      * @return an unsigned int between zero and three(both inclusive)
      */
     public long pinnedChats(){
-        return chats
+        return chats.values()
                 .stream()
                 .filter(Chat::isPinned)
                 .count();
     }
 
     /**
-     * Clears all data associated with the WhatsappWeb's WebSocket session
+     * Adds {@code message}, sent by the client, to {@code chat} and enforces the limits described by {@link WhatsappDataManager#messageRetention()} on said chat.
+     * Messages received from WhatsappWeb's WebSocket are added when they are processed, so this method should only be used for the ones sent by the client.
+     *
+     * @param chat    the chat the message was sent to
+     * @param message the message that was sent
+     */
+    public void addSentMessage(@NonNull Chat chat, @NonNull MessageInfo message) {
+        chat.messages().addOrReplace(message);
+        messageRetention.touch(chat);
+        messageRetention.trim(chat);
+    }
+
+    /**
+     * Clears all data associated with the WhatsappWeb's WebSocket session.
+     * Requests that are still pending are completed exceptionally using {@link Request#cancel()}, as their response will never be received.
      */
     public void clear() {
         chats.clear();
         contacts.clear();
-        pendingRequests.clear();
+        cancelPendingRequests();
+        messageRetention.clear();
+    }
+
+    private void cancelPendingRequests() {
+        for (var request : pendingRequests.values()) {
+            if (removePendingRequest(request)) {
+                request.cancel();
+            }
+        }
+    }
+
+    /**
+     * Applies {@code options} to the components of this session that depend on it: {@link WhatsappDataManager#messageRetention()}, {@link WhatsappDataManager#mediaTransport()}, {@link WhatsappDataManager#mediaCache()} and {@link WhatsappDataManager#mediaUploadRegistry()}.
+     * These components are built again only if {@code options} differs from the configuration that is currently applied, so that reconnecting doesn't throw away the media that was cached or uploaded.
+     * This method is called by the WebSocket every time it connects.
+     *
+     * @param options the configuration to apply
+     */
+    public synchronized void configure(@NonNull WhatsappConfiguration options) {
+        if (Objects.equals(options, configuration)) {
+            return;
+        }
+
+        this.configuration = options;
+        this.messageRetention = new MessageRetention(options);
+        this.mediaTransport = new MediaTransport(options);
+        this.mediaCache = new MediaCache(options);
+        this.mediaUploadRegistry = new MediaUploadRegistry(options);
+    }
+
+    /**
+     * Evicts from memory the messages that exceed the limits described by {@link WhatsappDataManager#messageRetention()}.
+     * This method is called periodically by the WebSocket, though it's safe to call it from any thread.
+     */
+    public void trimMessages() {
+        messageRetention.trim(chats.values());
     }
 
     /**
@@ -216,7 +380,7 @@ public class WhatsappDataManager {
      *
      * @return the tag
      */
-    public long tagAndIncrement() {
+    public synchronized long tagAndIncrement() {
         return tag++;
     }
 
@@ -251,6 +415,18 @@ public class WhatsappDataManager {
         listeners.forEach(listener -> callOnListenerThread(() -> consumer.accept(listener)));
     }
 
+    /**
+     * Decodes and digests a decrypted binary {@code message} adding the data it contains to the data this singleton holds
+     * Chat and contact lists are digested while they are decoded, without building their {@link Node} tree
+     *
+     * @param socket  the WebSocket associated with the WhatsappWeb's session
+     * @param decoder the decoder used to read {@code message}
+     * @param message the decrypted message to digest, from its position to its limit
+     */
+    public void digestBinaryMessage(@NonNull WhatsappWebSocket socket, @NonNull BinaryDecoder decoder, @NonNull ByteBuffer message) {
+        decoder.decodeDecryptedMessage(message, new WhatsappNodeDigester(this, socket));
+    }
+
     /**
      * Digests a {@code node} adding the data it contains to the data this singleton holds
      *
@@ -317,7 +493,7 @@ public class WhatsappDataManager {
             case "star" -> starMessage(node, chat);
             case "unstar" -> unstarMessage(node, chat);
             case "clear" -> deleteMessage(node, chat);
-            case "delete" -> chats.remove(chat);
+            case "delete" -> removeChat(chat);
         }
     }
 
@@ -330,14 +506,11 @@ public class WhatsappDataManager {
     }
 
     private void addOrReplaceContact(@NonNull Contact contact) {
-        if (findContactByJid(contact.jid()).isPresent()) {
-            contacts.remove(contact);
-            contacts.add(contact);
+        if (addContact(contact).isPresent()) {
             callListeners(listener -> listener.onContactUpdate(contact));
             return;
         }
 
-        contacts.add(contact);
         callListeners(listener -> listener.onNewContact(contact));
     }
 
@@ -446,8 +619,8 @@ public class WhatsappDataManager {
     private @NonNull Stream<MessageInfo> findMessagesFromNodes(@NonNull List<Node> childNodes) {
         return childNodes.stream()
                 .map(Node::content)
-                .filter(entry -> entry instanceof MessageInfo)
-                .map(entry -> (MessageInfo) entry);
+                .filter(entry -> entry instanceof LazyMessageInfo)
+                .map(entry -> ((LazyMessageInfo) entry).get());
     }
 
     private void parseResponse(@NonNull WhatsappWebSocket socket, @NonNull Node node, Object content) {
@@ -487,7 +660,7 @@ public class WhatsappDataManager {
         chats.forEach(this::processMessages);
     }
 
-    private void processMessages(@NonNull CompletableFuture<Chat> future) {
+    void processMessages(@NonNull CompletableFuture<Chat> future) {
         callListeners(listener -> processMessages(future, listener));
     }
 
@@ -547,27 +720,28 @@ public class WhatsappDataManager {
     }
 
     private void parseContacts(@NonNull List<Node> nodes) {
-        nodes.stream().map(Node::attrs).map(Contact::fromAttributes).forEach(contacts::add);
+        nodes.stream().map(Node::attrs).map(Contact::fromAttributes).forEach(this::addContact);
         callListeners(WhatsappListener::onContacts);
     }
 
     private Set<CompletableFuture<Chat>> processMessagesFromNodes(@NonNull WhatsappWebSocket socket, @NonNull List<Node> nodes) {
         return nodes.stream()
-                .filter(node -> node.content() instanceof MessageInfo)
-                .map(node -> (MessageInfo) node.content())
+                .filter(node -> node.content() instanceof LazyMessageInfo)
+                .map(node -> (LazyMessageInfo) node.content())
                 .map(messageInfo -> processMessageFromNode(socket, messageInfo))
                 .collect(Collectors.toUnmodifiableSet());
     }
 
-    private @NonNull CompletableFuture<Chat> processMessageFromNode(@NonNull WhatsappWebSocket socket, @NonNull MessageInfo messageInfo) {
-        return findChatByMessage(messageInfo)
+    @NonNull CompletableFuture<Chat> processMessageFromNode(@NonNull WhatsappWebSocket socket, @NonNull LazyMessageInfo messageInfo) {
+        var chatJid = messageInfo.key().chatJid();
+        return findChatByJid(chatJid)
                 .map(CompletableFuture::completedFuture)
-                .orElseGet(() -> queryMissingChat(socket, messageInfo.key().chatJid()))
+                .orElseGet(() -> queryMissingChat(socket, chatJid))
                 .thenApplyAsync(chat -> processMessageFromNode(messageInfo, chat));
     }
 
-    private @NonNull Chat processMessageFromNode(@NonNull MessageInfo messageInfo, @NonNull Chat chat) {
-        processMessage(chat, messageInfo);
+    private @NonNull Chat processMessageFromNode(@NonNull LazyMessageInfo messageInfo, @NonNull Chat chat) {
+        processMessage(chat, messageInfo.get());
         return chat;
     }
 
@@ -575,6 +749,7 @@ public class WhatsappDataManager {
         processServerMessage(chat, message);
         commitMessage(chat, message);
         broadcastMessage(chat, message);
+        messageRetention.trim(chat);
     }
 
     private void broadcastMessage(@NonNull Chat chat, @NonNull MessageInfo message) {
@@ -587,7 +762,9 @@ public class WhatsappDataManager {
     }
 
     private void commitMessage(@NonNull Chat chat, @NonNull MessageInfo message) {
-        if (!chat.messages().addOrReplace(message)) {
+        var replaced = chat.messages().addOrReplace(message);
+        messageRetention.touch(chat);
+        if (!replaced) {
             return;
         }
 
@@ -1,5 +1,6 @@
 package it.auties.whatsapp4j.manager;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -11,6 +12,7 @@ import it.auties.whatsapp4j.binary.BinaryArray;
 import it.auties.whatsapp4j.serialization.KeyPairDeserializer;
 import it.auties.whatsapp4j.serialization.KeyPairSerializer;
 import it.auties.whatsapp4j.utils.internal.CypherUtils;
+import it.auties.whatsapp4j.utils.internal.SessionCypher;
 import lombok.*;
 import lombok.experimental.Accessors;
 
@@ -56,6 +58,15 @@ public class WhatsappKeysManager {
     @JsonProperty
     private BinaryArray encKey, macKey;
 
+    /**
+     * The cached ciphers bound to {@link WhatsappKeysManager#encKey} and {@link WhatsappKeysManager#macKey}
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile SessionCypher sessionCypher;
+
     /**
      * Constructs an instance of {@link WhatsappKeysManager} using a json value
      *
@@ -95,7 +106,7 @@ public class WhatsappKeysManager {
             return fromJson(preferences);
         }
 
-        return new WhatsappKeysManager(Base64.getEncoder().encodeToString(BinaryArray.random(16).data()), CypherUtils.calculateRandomKeyPair(), null, null, null, null);
+        return new WhatsappKeysManager(Base64.getEncoder().encodeToString(BinaryArray.random(16).data()), CypherUtils.calculateRandomKeyPair(), null, null, null, null, null);
     }
 
     /**
@@ -107,6 +118,26 @@ public class WhatsappKeysManager {
         return Objects.nonNull(serverToken) && Objects.nonNull(clientToken);
     }
 
+    /**
+     * Returns the ciphers used to sign, encrypt and decrypt the binary frames of this session
+     * The returned object is cached and is only replaced when {@link WhatsappKeysManager#encKey} or {@link WhatsappKeysManager#macKey} change
+     *
+     * @throws NullPointerException if the keys haven't been initialized yet
+     * @return a non null {@link SessionCypher}
+     */
+    public @NonNull SessionCypher sessionCypher() {
+        var encKey = Objects.requireNonNull(this.encKey, "WhatsappAPI: Missing encryption key");
+        var macKey = Objects.requireNonNull(this.macKey, "WhatsappAPI: Missing mac key");
+        var cached = sessionCypher;
+        if (cached != null && cached.isBoundTo(encKey, macKey)) {
+            return cached;
+        }
+
+        var result = new SessionCypher(encKey, macKey);
+        this.sessionCypher = result;
+        return result;
+    }
+
     /**
      * Initializes the serverToken, clientToken, encryptionKey and macKey with non null values
      */
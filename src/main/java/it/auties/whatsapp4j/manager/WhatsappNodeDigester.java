@@ -0,0 +1,205 @@
+package it.auties.whatsapp4j.manager;
+
+import it.auties.whatsapp4j.binary.BinaryNodeBuilder;
+import it.auties.whatsapp4j.binary.BinaryNodeHandler;
+import it.auties.whatsapp4j.listener.WhatsappListener;
+import it.auties.whatsapp4j.protobuf.chat.Chat;
+import it.auties.whatsapp4j.protobuf.contact.Contact;
+import it.auties.whatsapp4j.protobuf.info.LazyMessageInfo;
+import it.auties.whatsapp4j.whatsapp.internal.WhatsappWebSocket;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link BinaryNodeHandler} that digests a node while it's being decoded.
+ * Chat and contact lists, which can contain thousands of entries, are turned into {@link Chat}s and {@link Contact}s one entry at a time without ever building their tree.
+ * Pages of messages, for example the history sent after the login, are digested in the same way: each {@link LazyMessageInfo} is processed as soon as it's decoded.
+ * Any other node is built using a {@link BinaryNodeBuilder} and then digested by {@link WhatsappDataManager#digestWhatsappNode(WhatsappWebSocket, it.auties.whatsapp4j.protobuf.model.Node)}.
+ * An instance should only be used to digest one node.
+ */
+@RequiredArgsConstructor
+class WhatsappNodeDigester implements BinaryNodeHandler {
+    private final @NonNull WhatsappDataManager manager;
+    private final @NonNull WhatsappWebSocket socket;
+    private final @NonNull Map<String, String> rootAttributes = new LinkedHashMap<>();
+    private final @NonNull List<CompletableFuture<Chat>> messageChats = new ArrayList<>();
+    private String rootDescription;
+    private int rootAttributesCount;
+    private int rootChildrenCount;
+    private int depth;
+    private Mode mode = Mode.UNDECIDED;
+    private BinaryNodeBuilder builder;
+    private Map<String, String> entryAttributes;
+    private int entries;
+
+    @Override
+    public void onNodeStart(@NonNull String description, int attributes) {
+        if (depth++ == 0) {
+            rootDescription = description;
+            rootAttributesCount = attributes;
+            return;
+        }
+
+        if (mode == Mode.MESSAGES && depth == 2 && entries++ == 0 && !"message".equals(description)) {
+            // Like WhatsappDataManager#parseAction, only actions whose first child is a message are pages of messages
+            startTree();
+            builder.onChildrenStart(rootChildrenCount);
+        }
+
+        switch (mode) {
+            case TREE -> builder.onNodeStart(description, attributes);
+            case CHATS, CONTACTS -> {
+                if (depth == 2) {
+                    entryAttributes = new HashMap<>(attributes * 2);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onAttribute(@NonNull String key, @NonNull String value) {
+        if (depth == 1) {
+            rootAttributes.put(key, value);
+            return;
+        }
+
+        switch (mode) {
+            case TREE -> builder.onAttribute(key, value);
+            case CHATS, CONTACTS -> {
+                if (depth == 2) {
+                    entryAttributes.put(key, value);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onChildrenStart(int size) {
+        if (depth == 1) {
+            rootChildrenCount = size;
+            mode = decideMode();
+            if (mode != Mode.TREE) {
+                return;
+            }
+
+            startTree();
+        }
+
+        if (mode == Mode.TREE) {
+            builder.onChildrenStart(size);
+        }
+    }
+
+    @Override
+    public void onContent(@NonNull Object content) {
+        if (mode == Mode.UNDECIDED) {
+            startTree();
+        }
+
+        if (mode == Mode.TREE) {
+            builder.onContent(content);
+            return;
+        }
+
+        if (mode == Mode.MESSAGES && depth == 2 && content instanceof LazyMessageInfo message) {
+            messageChats.add(manager.processMessageFromNode(socket, message));
+        }
+    }
+
+    @Override
+    public void onNodeEnd(@NonNull String description) {
+        if (mode == Mode.UNDECIDED) {
+            startTree();
+        }
+
+        switch (mode) {
+            case TREE -> builder.onNodeEnd(description);
+            case CHATS -> {
+                if (depth == 2) {
+                    manager.addChat(Chat.fromAttributes(entryAttributes));
+                    entries++;
+                }
+            }
+            case CONTACTS -> {
+                if (depth == 2) {
+                    manager.addContact(Contact.fromAttributes(entryAttributes));
+                    entries++;
+                }
+            }
+        }
+
+        if (--depth != 0) {
+            return;
+        }
+
+        switch (mode) {
+            case TREE -> manager.digestWhatsappNode(socket, builder.result());
+            case CHATS -> {
+                if (entries > 0) {
+                    manager.callListeners(WhatsappListener::onChats);
+                }
+            }
+            case CONTACTS -> {
+                if (entries > 0) {
+                    manager.callListeners(WhatsappListener::onContacts);
+                }
+            }
+            case MESSAGES -> {
+                if (isLastPage()) {
+                    messageChats.forEach(manager::processMessages);
+                }
+            }
+        }
+    }
+
+    private @NonNull Mode decideMode() {
+        if (Boolean.parseBoolean(rootAttributes.getOrDefault("duplicate", "false"))) {
+            return Mode.TREE;
+        }
+
+        if ("action".equals(rootDescription) && rootAttributes.containsKey("add")) {
+            return Mode.MESSAGES;
+        }
+
+        if (!"response".equals(rootDescription)) {
+            return Mode.TREE;
+        }
+
+        var type = rootAttributes.get("type");
+        if (type == null) {
+            return Mode.TREE;
+        }
+
+        return switch (type) {
+            case "chat" -> Mode.CHATS;
+            case "contacts" -> Mode.CONTACTS;
+            default -> Mode.TREE;
+        };
+    }
+
+    private boolean isLastPage() {
+        return "last".equals(rootAttributes.get("add")) || Boolean.parseBoolean(rootAttributes.getOrDefault("last", "false"));
+    }
+
+    private void startTree() {
+        mode = Mode.TREE;
+        builder = new BinaryNodeBuilder();
+        builder.onNodeStart(rootDescription, rootAttributesCount);
+        rootAttributes.forEach(builder::onAttribute);
+    }
+
+    private enum Mode {
+        UNDECIDED,
+        TREE,
+        CHATS,
+        CONTACTS,
+        MESSAGES
+    }
+}
@@ -0,0 +1,386 @@
+package it.auties.whatsapp4j.media;
+
+import it.auties.whatsapp4j.binary.BinaryArray;
+import it.auties.whatsapp4j.utils.internal.CypherUtils;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.Accessors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * This class caches decoded media shared by every message, so that the same media, for example a forwarded sticker, is downloaded and decoded only once.
+ * Media are identified only by their {@code fileSha256}, and a media is cached only if its sha256 matches the {@code fileSha256} it's stored under: as both hashes of a message come from its sender, the {@code fileEncSha256} is never used as a key, otherwise a message could be pointed at the media of another one.
+ * Media are kept in memory up to {@link MediaCache#memorySize()} bytes, the least recently used ones are evicted first.
+ * If {@link MediaCache#directory()} is not null, media evicted from memory are spilled there up to {@link MediaCache#diskSize()} bytes, the least recently used ones are deleted first.
+ * Arrays returned by this class are copies, so they can be freely modified.
+ */
+@Accessors(fluent = true)
+public class MediaCache {
+    private static final String EXTENSION = ".media";
+    private static final String TEMP_EXTENSION = ".part";
+
+    /**
+     * The maximum number of bytes held in memory, a non positive value disables the memory tier
+     */
+    private final @Getter long memorySize;
+
+    /**
+     * The directory where media evicted from memory are spilled, null if the disk tier is disabled
+     */
+    private final @Getter Path directory;
+
+    /**
+     * The maximum number of bytes saved in {@link MediaCache#directory()}
+     */
+    private final @Getter long diskSize;
+
+    /**
+     * The media held in memory, identified by the hex of their fileSha256, from the least to the most recently used
+     */
+    private final @NonNull LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The size of the media saved on disk, identified by the hex of their fileSha256, from the least to the most recently used
+     */
+    private final @NonNull LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The loads that are running, identified by the hex of the fileSha256 of the media they are loading
+     */
+    private final @NonNull Map<String, CompletableFuture<byte[]>> loading = new ConcurrentHashMap<>();
+
+    private long memoryUsage;
+    private long diskUsage;
+
+    /**
+     * Constructs a new cache using the media cache options of {@code configuration}
+     *
+     * @param configuration the configuration to use
+     */
+    public MediaCache(@NonNull WhatsappConfiguration configuration) {
+        this(configuration.mediaCacheSize(), configuration.mediaCacheDirectory(), configuration.mediaCacheDiskSize());
+    }
+
+    /**
+     * Constructs a new cache.
+     * If {@code directory} already contains media saved by a previous cache, they are reused: the least recently used ones are deleted until they fit in {@code diskSize}, and files left behind by an interrupted write are deleted.
+     *
+     * @param memorySize the maximum number of bytes held in memory, a non positive value disables the memory tier
+     * @param directory  the directory where media evicted from memory are spilled, null to disable the disk tier
+     * @param diskSize   the maximum number of bytes saved in {@code directory}
+     * @throws UncheckedIOException if {@code directory} cannot be created or read
+     */
+    public MediaCache(long memorySize, Path directory, long diskSize) {
+        this.memorySize = memorySize;
+        this.directory = directory;
+        this.diskSize = diskSize;
+        if (directory != null) {
+            loadDirectory();
+        }
+    }
+
+    /**
+     * Returns a cached media
+     *
+     * @param fileSha256 the sha256 of the decoded media
+     * @return a non empty optional if the media is cached
+     */
+    public @NonNull Optional<byte[]> get(byte @NonNull [] fileSha256) {
+        var key = hex(fileSha256);
+        synchronized (this) {
+            var cached = memory.get(key);
+            if (cached != null) {
+                return Optional.of(cached.clone());
+            }
+
+            if (disk.get(key) == null) {
+                return Optional.empty();
+            }
+        }
+
+        var media = readFromDisk(key);
+        if (media.isPresent() && !Arrays.equals(CypherUtils.sha256(media.get()), fileSha256)) {
+            invalidate(fileSha256);
+            return Optional.empty();
+        }
+
+        media.ifPresent(data -> store(key, data));
+        return media.map(byte[]::clone);
+    }
+
+    /**
+     * Caches a media, if its sha256 doesn't match {@code fileSha256} it's ignored
+     *
+     * @param fileSha256 the sha256 of the decoded media
+     * @param media      the decoded media
+     * @return true if the media was cached
+     */
+    public boolean put(byte @NonNull [] fileSha256, byte @NonNull [] media) {
+        if (!Arrays.equals(CypherUtils.sha256(media), fileSha256)) {
+            return false;
+        }
+
+        store(hex(fileSha256), media.clone());
+        return true;
+    }
+
+    /**
+     * Returns a cached media or loads it using {@code loader}.
+     * Concurrent loads of the same media are merged, so that {@code loader} is called once.
+     *
+     * @param fileSha256 the sha256 of the decoded media
+     * @param loader     a supplier that starts loading the decoded media
+     * @return a non null future completed with the media
+     */
+    public @NonNull CompletableFuture<byte[]> load(byte @NonNull [] fileSha256, @NonNull Supplier<CompletableFuture<byte[]>> loader) {
+        var cached = get(fileSha256);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        var key = hex(fileSha256);
+        var future = new CompletableFuture<byte[]>();
+        var running = loading.putIfAbsent(key, future);
+        if (running != null) {
+            return running.thenApply(byte[]::clone);
+        }
+
+        try {
+            loader.get().whenComplete((media, error) -> {
+                loading.remove(key, future);
+                if (error != null) {
+                    future.completeExceptionally(error);
+                    return;
+                }
+
+                put(fileSha256, media);
+                future.complete(media);
+            });
+        } catch (Throwable throwable) {
+            loading.remove(key, future);
+            future.completeExceptionally(throwable);
+        }
+
+        return future.thenApply(byte[]::clone);
+    }
+
+    /**
+     * Removes a media from every tier of this cache
+     *
+     * @param fileSha256 the sha256 of the decoded media
+     */
+    public void invalidate(byte @NonNull [] fileSha256) {
+        var key = hex(fileSha256);
+        synchronized (this) {
+            var cached = memory.remove(key);
+            if (cached != null) {
+                memoryUsage -= cached.length;
+            }
+
+            var size = disk.remove(key);
+            if (size != null) {
+                diskUsage -= size;
+            }
+        }
+
+        deleteFromDisk(key);
+    }
+
+    /**
+     * Removes every media from every tier of this cache
+     */
+    public void clear() {
+        List<String> keys;
+        synchronized (this) {
+            keys = List.copyOf(disk.keySet());
+            memory.clear();
+            disk.clear();
+            memoryUsage = 0;
+            diskUsage = 0;
+        }
+
+        keys.forEach(this::deleteFromDisk);
+    }
+
+    /**
+     * Returns the number of bytes held in memory
+     *
+     * @return a non negative long
+     */
+    public synchronized long memoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Returns the number of bytes saved on disk
+     *
+     * @return a non negative long
+     */
+    public synchronized long diskUsage() {
+        return diskUsage;
+    }
+
+    private void store(@NonNull String key, byte @NonNull [] media) {
+        var spilled = new LinkedHashMap<String, byte[]>();
+        synchronized (this) {
+            if (media.length > memorySize) {
+                if (!disk.containsKey(key)) {
+                    spilled.put(key, media);
+                }
+            } else {
+                var previous = memory.put(key, media);
+                memoryUsage += media.length - (previous == null ? 0 : previous.length);
+                var iterator = memory.entrySet().iterator();
+                while (memoryUsage > memorySize && iterator.hasNext()) {
+                    var eldest = iterator.next();
+                    iterator.remove();
+                    memoryUsage -= eldest.getValue().length;
+                    if (!disk.containsKey(eldest.getKey())) {
+                        spilled.put(eldest.getKey(), eldest.getValue());
+                    }
+                }
+            }
+        }
+
+        if (directory == null) {
+            return;
+        }
+
+        spilled.forEach(this::writeToDisk);
+    }
+
+    private void writeToDisk(@NonNull String key, byte @NonNull [] media) {
+        if (media.length > diskSize) {
+            return;
+        }
+
+        try {
+            var temp = Files.createTempFile(directory, key, TEMP_EXTENSION);
+            try {
+                Files.write(temp, media);
+                moveReplacing(temp, file(key));
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException exception) {
+            return;
+        }
+
+        var evicted = new ArrayList<String>();
+        synchronized (this) {
+            var previous = disk.put(key, (long) media.length);
+            diskUsage += media.length - (previous == null ? 0 : previous);
+            var iterator = disk.entrySet().iterator();
+            while (diskUsage > diskSize && iterator.hasNext()) {
+                var eldest = iterator.next();
+                iterator.remove();
+                diskUsage -= eldest.getValue();
+                evicted.add(eldest.getKey());
+            }
+        }
+
+        evicted.forEach(this::deleteFromDisk);
+    }
+
+    private @NonNull Optional<byte[]> readFromDisk(@NonNull String key) {
+        try {
+            return Optional.of(Files.readAllBytes(file(key)));
+        } catch (IOException exception) {
+            synchronized (this) {
+                var size = disk.remove(key);
+                if (size != null) {
+                    diskUsage -= size;
+                }
+            }
+
+            return Optional.empty();
+        }
+    }
+
+    private void deleteFromDisk(@NonNull String key) {
+        if (directory == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException ignored) {
+
+        }
+    }
+
+    private void moveReplacing(@NonNull Path source, @NonNull Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @SneakyThrows
+    private void loadDirectory() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> saved;
+            try (var files = Files.list(directory)) {
+                saved = files.toList();
+            }
+
+            for (var file : saved) {
+                if (file.getFileName().toString().endsWith(TEMP_EXTENSION)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+
+            saved.stream()
+                    .filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .forEach(file -> {
+                        var name = file.getFileName().toString();
+                        var size = size(file);
+                        disk.put(name.substring(0, name.length() - EXTENSION.length()), size);
+                        diskUsage += size;
+                    });
+        } catch (IOException exception) {
+            throw new UncheckedIOException("WhatsappAPI: Cannot load media cache from %s".formatted(directory), exception);
+        }
+
+        var iterator = disk.entrySet().iterator();
+        while (diskUsage > diskSize && iterator.hasNext()) {
+            var eldest = iterator.next();
+            iterator.remove();
+            diskUsage -= eldest.getValue();
+            deleteFromDisk(eldest.getKey());
+        }
+    }
+
+    @SneakyThrows
+    private long lastModified(@NonNull Path file) {
+        return Files.getLastModifiedTime(file).toMillis();
+    }
+
+    @SneakyThrows
+    private long size(@NonNull Path file) {
+        return Files.size(file);
+    }
+
+    private @NonNull Path file(@NonNull String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private @NonNull String hex(byte @NonNull [] hash) {
+        return BinaryArray.forArray(hash).toHex();
+    }
+}
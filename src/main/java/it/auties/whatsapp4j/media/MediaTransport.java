@@ -0,0 +1,385 @@
+package it.auties.whatsapp4j.media;
+
+import it.auties.whatsapp4j.utils.internal.Validate;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.Accessors;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * This class transfers encoded media from and to WhatsappWeb's media servers.
+ * A single HTTP/2 client is shared by every transfer, so that connections to the same host are reused instead of being opened for each media.
+ * At most {@link MediaTransport#maxConnectionsPerHost()} transfers to the same host run at the same time, the others are queued without blocking any thread.
+ * A transfer that fails because of an IO error, a timeout or a 429 or 5xx status code is retried with exponential backoff up to {@link MediaTransport#maxRetries()} times.
+ * Each attempt is aborted if it takes longer than {@link MediaTransport#transferTimeout()}, body included, so that a server that stalls after sending the response headers cannot hang a transfer forever.
+ */
+@Accessors(fluent = true)
+public class MediaTransport {
+    /**
+     * The client shared by every transfer
+     */
+    private final @NonNull @Getter HttpClient client;
+
+    /**
+     * The maximum time to wait for the response headers of a transfer before it's considered failed
+     */
+    private final @NonNull @Getter Duration requestTimeout;
+
+    /**
+     * The maximum time a single attempt of a transfer, including its body, can take before it's aborted, a zero or negative duration means no deadline
+     */
+    private final @NonNull @Getter Duration transferTimeout;
+
+    /**
+     * The maximum time to wait for new data while reading a stream returned by {@link MediaTransport#openDownload(URI)}, a zero or negative duration means no limit
+     */
+    private final @NonNull @Getter Duration readTimeout;
+
+    /**
+     * The maximum number of transfers to the same host that can run at the same time
+     */
+    private final @Getter int maxConnectionsPerHost;
+
+    /**
+     * The maximum number of times a failed transfer is retried
+     */
+    private final @Getter int maxRetries;
+
+    /**
+     * The delay before the first retry of a failed transfer, doubled for each following retry
+     */
+    private final @NonNull @Getter Duration retryBackoff;
+
+    /**
+     * The limiters that enforce {@link MediaTransport#maxConnectionsPerHost()}, identified by host
+     */
+    private final @NonNull Map<String, HostLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new transport using the media options of {@code configuration}
+     *
+     * @param configuration the configuration to use
+     */
+    public MediaTransport(@NonNull WhatsappConfiguration configuration) {
+        this(configuration.mediaConnectTimeout(), configuration.mediaRequestTimeout(), configuration.mediaTransferTimeout(), configuration.mediaReadTimeout(),
+                configuration.maxMediaConnectionsPerHost(), configuration.maxMediaRetries(), configuration.mediaRetryBackoff());
+    }
+
+    /**
+     * Constructs a new transport
+     *
+     * @param connectTimeout        the maximum time to wait for a connection to be established
+     * @param requestTimeout        the maximum time to wait for the response headers of a transfer
+     * @param transferTimeout       the maximum time a single attempt of a transfer, including its body, can take
+     * @param readTimeout           the maximum time to wait for new data while reading a streamed download
+     * @param maxConnectionsPerHost the maximum number of transfers to the same host that can run at the same time
+     * @param maxRetries            the maximum number of times a failed transfer is retried
+     * @param retryBackoff          the delay before the first retry of a failed transfer
+     * @throws IllegalArgumentException if {@code maxConnectionsPerHost} is not positive or {@code maxRetries} is negative
+     */
+    public MediaTransport(@NonNull Duration connectTimeout, @NonNull Duration requestTimeout, @NonNull Duration transferTimeout, @NonNull Duration readTimeout,
+                          int maxConnectionsPerHost, int maxRetries, @NonNull Duration retryBackoff) {
+        Validate.isTrue(maxConnectionsPerHost > 0, "WhatsappAPI: Cannot create a media transport, the maximum number of connections per host should be positive, got %s", IllegalArgumentException.class, maxConnectionsPerHost);
+        Validate.isTrue(maxRetries >= 0, "WhatsappAPI: Cannot create a media transport, the maximum number of retries cannot be negative, got %s", IllegalArgumentException.class, maxRetries);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.transferTimeout = transferTimeout;
+        this.readTimeout = readTimeout;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Downloads the encoded media at {@code uri} in memory
+     *
+     * @param uri the location of the media
+     * @return a non null future completed with the downloaded bytes, or exceptionally with an {@link IOException} if the download failed after every retry
+     */
+    public @NonNull CompletableFuture<byte[]> download(@NonNull URI uri) {
+        var limiter = limiter(uri);
+        return send(HttpRequest.newBuilder(uri).timeout(requestTimeout).GET().build(), HttpResponse.BodyHandlers.ofByteArray(), limiter, 0)
+                .thenApply(response -> {
+                    limiter.release();
+                    return response.body();
+                });
+    }
+
+    /**
+     * Opens a stream over the encoded media at {@code uri}, this method blocks until the response headers are received.
+     * Only establishing the download is retried: an error while reading the returned stream is thrown to the caller.
+     * A read that receives no data for {@link MediaTransport#readTimeout()} fails with an {@link HttpTimeoutException}.
+     * The returned stream counts towards {@link MediaTransport#maxConnectionsPerHost()} until it's closed.
+     *
+     * @param uri the location of the media
+     * @return a non null stream that should be closed after being consumed
+     * @throws IOException if the download couldn't be established after every retry
+     */
+    public @NonNull InputStream openDownload(@NonNull URI uri) throws IOException {
+        var limiter = limiter(uri);
+        var response = await(send(HttpRequest.newBuilder(uri).timeout(requestTimeout).GET().build(), HttpResponse.BodyHandlers.ofInputStream(), limiter, 0));
+        return new IdleTimeoutInputStream(response.body(), readTimeout, limiter);
+    }
+
+    /**
+     * Uploads an encoded media to {@code uri}.
+     * As the upload may be retried, {@code body} should be able to publish its content more than once.
+     *
+     * @param uri  the location where the media should be uploaded
+     * @param body the encoded media
+     * @return a non null future completed with the body of the response, or exceptionally with an {@link IOException} if the upload failed after every retry
+     */
+    public @NonNull CompletableFuture<String> upload(@NonNull URI uri, @NonNull HttpRequest.BodyPublisher body) {
+        var limiter = limiter(uri);
+        return send(HttpRequest.newBuilder(uri).timeout(requestTimeout).POST(body).build(), HttpResponse.BodyHandlers.ofString(), limiter, 0)
+                .thenApply(response -> {
+                    limiter.release();
+                    return response.body();
+                });
+    }
+
+    private @NonNull HostLimiter limiter(@NonNull URI uri) {
+        return limiters.computeIfAbsent(String.valueOf(uri.getHost()), host -> new HostLimiter(maxConnectionsPerHost));
+    }
+
+    private <T> @NonNull CompletableFuture<HttpResponse<T>> send(@NonNull HttpRequest request, @NonNull HttpResponse.BodyHandler<T> handler, @NonNull HostLimiter limiter, int attempt) {
+        return limiter.acquire()
+                .thenCompose(ignored -> exchange(request, handler))
+                .handle((response, error) -> {
+                    if (error == null && response.statusCode() / 100 == 2) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+
+                    limiter.release();
+                    if (response != null && response.body() instanceof Closeable closeable) {
+                        closeQuietly(closeable);
+                    }
+
+                    var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    var failure = cause != null ? cause : new IOException("WhatsappAPI: Cannot transfer media %s, unexpected status code %s".formatted(request.uri(), response.statusCode()));
+                    if (attempt >= maxRetries || !isRetryable(cause, response)) {
+                        return CompletableFuture.<HttpResponse<T>>failedFuture(failure);
+                    }
+
+                    var delay = CompletableFuture.delayedExecutor(backoff(attempt), TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> {}, delay).thenCompose(ignored -> send(request, handler, limiter, attempt + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private <T> @NonNull CompletableFuture<HttpResponse<T>> exchange(@NonNull HttpRequest request, @NonNull HttpResponse.BodyHandler<T> handler) {
+        var exchange = client.sendAsync(request, handler);
+        if (transferTimeout.isZero() || transferTimeout.isNegative()) {
+            return exchange;
+        }
+
+        var result = exchange.copy().orTimeout(transferTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        return result.exceptionallyCompose(error -> {
+            if (!(error instanceof TimeoutException)) {
+                return CompletableFuture.failedFuture(error);
+            }
+
+            exchange.cancel(true);
+            return CompletableFuture.failedFuture(new HttpTimeoutException("WhatsappAPI: Cannot transfer media %s, no response in %s".formatted(request.uri(), transferTimeout)));
+        });
+    }
+
+    private boolean isRetryable(Throwable error, HttpResponse<?> response) {
+        if (error != null) {
+            return error instanceof IOException;
+        }
+
+        return response.statusCode() == 429 || response.statusCode() >= 500;
+    }
+
+    private long backoff(int attempt) {
+        var delay = retryBackoff.toMillis() << Math.min(attempt, 16);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void closeQuietly(@NonNull Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+
+        }
+    }
+
+    @SneakyThrows
+    private <T> T await(@NonNull CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            throw exception.getCause() != null ? exception.getCause() : exception;
+        }
+    }
+
+    /**
+     * A stream over the body of a download that fails a read if no data is received for a given time and that releases its {@link HostLimiter} once closed.
+     * A single watchdog task is scheduled while a read is in progress: if the read is still blocked when the time elapses, the body is closed, the reading thread is interrupted and the read fails with an {@link HttpTimeoutException}.
+     */
+    private static final class IdleTimeoutInputStream extends FilterInputStream {
+        private final long timeout;
+        private final HostLimiter limiter;
+        private Thread reader;
+        private long readStart;
+        private boolean watching;
+        private boolean timedOut;
+        private boolean closed;
+
+        private IdleTimeoutInputStream(@NonNull InputStream input, @NonNull Duration timeout, @NonNull HostLimiter limiter) {
+            super(input);
+            this.timeout = timeout.isNegative() ? 0 : timeout.toNanos();
+            this.limiter = limiter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            beginRead();
+            try {
+                return in.read();
+            } finally {
+                endRead();
+            }
+        }
+
+        @Override
+        public int read(byte @NonNull [] buffer, int offset, int length) throws IOException {
+            beginRead();
+            try {
+                return in.read(buffer, offset, length);
+            } finally {
+                endRead();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+
+                closed = true;
+            }
+
+            try {
+                super.close();
+            } finally {
+                limiter.release();
+            }
+        }
+
+        private synchronized void beginRead() throws HttpTimeoutException {
+            if (timedOut) {
+                throw new HttpTimeoutException("WhatsappAPI: Cannot read media, no data was received in %s ms".formatted(TimeUnit.NANOSECONDS.toMillis(timeout)));
+            }
+
+            reader = Thread.currentThread();
+            readStart = System.nanoTime();
+            if (timeout > 0 && !watching) {
+                watching = true;
+                watch(timeout);
+            }
+        }
+
+        private synchronized void endRead() throws HttpTimeoutException {
+            reader = null;
+            if (timedOut) {
+                Thread.interrupted();
+                throw new HttpTimeoutException("WhatsappAPI: Cannot read media, no data was received in %s ms".formatted(TimeUnit.NANOSECONDS.toMillis(timeout)));
+            }
+        }
+
+        private void watch(long delay) {
+            CompletableFuture.runAsync(this::checkRead, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS));
+        }
+
+        private synchronized void checkRead() {
+            if (reader == null || closed) {
+                watching = false;
+                return;
+            }
+
+            var remaining = timeout - (System.nanoTime() - readStart);
+            if (remaining > 0) {
+                watch(remaining);
+                return;
+            }
+
+            watching = false;
+            timedOut = true;
+            try {
+                // The body stream ignores interrupts unless it's closed, so it's closed first to abort the download
+                in.close();
+            } catch (IOException ignored) {
+
+            } finally {
+                reader.interrupt();
+            }
+        }
+    }
+
+    /**
+     * A non blocking semaphore that queues the transfers to a host that exceed {@link MediaTransport#maxConnectionsPerHost()}
+     */
+    private static final class HostLimiter {
+        private final int permits;
+        private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+        private int active;
+
+        private HostLimiter(int permits) {
+            this.permits = permits;
+        }
+
+        private synchronized @NonNull CompletableFuture<Void> acquire() {
+            if (active < permits) {
+                active++;
+                return CompletableFuture.completedFuture(null);
+            }
+
+            var future = new CompletableFuture<Void>();
+            waiting.add(future);
+            return future;
+        }
+
+        private void release() {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    active--;
+                    return;
+                }
+            }
+
+            next.completeAsync(() -> null);
+        }
+    }
+}
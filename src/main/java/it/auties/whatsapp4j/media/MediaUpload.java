@@ -10,14 +10,15 @@ import lombok.NonNull;
  * @param url the non null upload url
  * @param directPath the non null direct upload path
  * @param mediaKey the non null media key
- * @param file the uploaded file
+ * @param file the uploaded file, null if it was streamed from disk instead of being buffered in memory
  * @param fileSha256 the sha256 of the uploaded file
  * @param fileEncSha256 the sha256 of the encoded file
  * @param sidecar the sidecar of the uploaded file
  * @param mediaType the type of media
+ * @param fileLength the size of the decoded file
  */
 public record MediaUpload(@NonNull String url, @NonNull String directPath,
                           @NonNull BinaryArray mediaKey, byte[] file,
                           byte[] fileSha256, byte[] fileEncSha256, byte[] sidecar,
-                          @NonNull MediaMessageType mediaType) {
+                          @NonNull MediaMessageType mediaType, long fileLength) {
 }
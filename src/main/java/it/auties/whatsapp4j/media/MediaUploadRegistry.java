@@ -0,0 +1,142 @@
+package it.auties.whatsapp4j.media;
+
+import it.auties.whatsapp4j.binary.BinaryArray;
+import it.auties.whatsapp4j.protobuf.message.model.MediaMessageType;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * This class remembers the media that were uploaded to WhatsappWeb's media servers, identified by the sha256 of their decoded content and by their type.
+ * When the same media is sent again, for example to a large number of chats, the previous upload is reused so that the media isn't encrypted and uploaded again.
+ * Uploads are reused only for {@link MediaUploadRegistry#ttl()}, as WhatsappWeb's servers eventually delete them, and at most {@link MediaUploadRegistry#MAX_UPLOADS} are remembered, the least recently used are forgotten first.
+ * This registry is disabled unless {@link WhatsappConfiguration#mediaUploadTtl()} is positive.
+ */
+@Accessors(fluent = true)
+public class MediaUploadRegistry {
+    /**
+     * The maximum number of uploads that are remembered
+     */
+    public static final int MAX_UPLOADS = 10_000;
+
+    /**
+     * The amount of time an upload is reused for, a zero or negative duration means that uploads are never reused
+     */
+    private final @NonNull @Getter Duration ttl;
+
+    /**
+     * The clock used to expire uploads
+     */
+    private final @NonNull Clock clock;
+
+    /**
+     * The uploads remembered by this registry, identified by their type and the hex of their fileSha256, from the least to the most recently used
+     */
+    private final @NonNull LinkedHashMap<String, Registration> uploads = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Registration> eldest) {
+            return size() > MAX_UPLOADS;
+        }
+    };
+
+    /**
+     * Constructs a new registry using {@link WhatsappConfiguration#mediaUploadTtl()}
+     *
+     * @param configuration the configuration to use
+     */
+    public MediaUploadRegistry(@NonNull WhatsappConfiguration configuration) {
+        this(configuration.mediaUploadTtl(), Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a new registry
+     *
+     * @param ttl   the amount of time an upload is reused for, a zero or negative duration disables this registry
+     * @param clock the clock used to expire uploads
+     */
+    public MediaUploadRegistry(@NonNull Duration ttl, @NonNull Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns whether this registry reuses uploads
+     *
+     * @return true if {@link MediaUploadRegistry#ttl()} is positive
+     */
+    public boolean enabled() {
+        return !ttl.isZero() && !ttl.isNegative();
+    }
+
+    /**
+     * Returns an upload of a media that can still be reused
+     *
+     * @param fileSha256 the sha256 of the decoded media
+     * @param type       the type of the media
+     * @return a non empty optional if the media was uploaded less than {@link MediaUploadRegistry#ttl()} ago
+     */
+    public synchronized @NonNull Optional<MediaUpload> find(byte @NonNull [] fileSha256, @NonNull MediaMessageType type) {
+        if (!enabled()) {
+            return Optional.empty();
+        }
+
+        var key = key(fileSha256, type);
+        var registration = uploads.get(key);
+        if (registration == null) {
+            return Optional.empty();
+        }
+
+        if (!registration.expiration().isAfter(clock.instant())) {
+            uploads.remove(key);
+            return Optional.empty();
+        }
+
+        return Optional.of(registration.upload());
+    }
+
+    /**
+     * Remembers an upload so that it can be reused, the encoded file it holds, if any, is not retained
+     *
+     * @param upload the upload to remember
+     */
+    public synchronized void register(@NonNull MediaUpload upload) {
+        if (!enabled() || upload.fileSha256() == null) {
+            return;
+        }
+
+        var retained = new MediaUpload(upload.url(), upload.directPath(), upload.mediaKey(), null, upload.fileSha256(), upload.fileEncSha256(), upload.sidecar(), upload.mediaType(), upload.fileLength());
+        uploads.put(key(upload.fileSha256(), upload.mediaType()), new Registration(retained, clock.instant().plus(ttl)));
+    }
+
+    /**
+     * Forgets every upload of a media, for example because WhatsappWeb's servers don't accept it anymore
+     *
+     * @param fileSha256 the sha256 of the decoded media
+     */
+    public synchronized void invalidate(byte @NonNull [] fileSha256) {
+        var hex = BinaryArray.forArray(fileSha256).toHex();
+        uploads.keySet().removeIf(key -> key.endsWith(hex));
+    }
+
+    /**
+     * Forgets every upload
+     */
+    public synchronized void clear() {
+        uploads.clear();
+    }
+
+    private @NonNull String key(byte @NonNull [] fileSha256, @NonNull MediaMessageType type) {
+        return "%s:%s".formatted(type.name(), BinaryArray.forArray(fileSha256).toHex());
+    }
+
+    private record Registration(@NonNull MediaUpload upload, @NonNull Instant expiration) {
+    }
+}
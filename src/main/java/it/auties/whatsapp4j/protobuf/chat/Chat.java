@@ -46,7 +46,7 @@ public class Chat {
   private @NonNull String displayName;
 
   /**
-   * A non null arrayList of messages in this chat sorted chronologically
+   * A non null list of messages in this chat sorted chronologically
    */
   @Builder.Default
   private @NonNull Messages messages = new Messages();
@@ -252,7 +252,7 @@ public class Chat {
    * @return a non empty optional if {@link Chat#messages} isn't empty, otherwise an empty optional
    */
   public @NonNull Optional<MessageInfo> lastMessage() {
-    return messages.isEmpty() ? Optional.empty() : Optional.of(messages.get(messages.size() - 1));
+    return messages.lastMessage();
   }
 
   /**
@@ -261,6 +261,6 @@ public class Chat {
    * @return a non empty optional if {@link Chat#messages} isn't empty, otherwise an empty optional
    */
   public @NonNull Optional<MessageInfo> firstMessage() {
-    return messages.isEmpty() ? Optional.empty() : Optional.of(messages.get(0));
+    return messages.firstMessage();
   }
 }
@@ -0,0 +1,236 @@
+package it.auties.whatsapp4j.protobuf.info;
+
+import it.auties.protobuf.decoder.ProtobufDecoder;
+import it.auties.whatsapp4j.protobuf.message.model.MessageKey;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A holder for a {@link MessageInfo} that was received from WhatsappWeb's WebSocket and that has not been decoded yet.
+ * The protobuf is only decoded the first time {@link LazyMessageInfo#get()} is called, so messages that are discarded never pay for it.
+ * The {@link MessageKey} can be read using {@link LazyMessageInfo#key()}, which only parses the few bytes that make up the key.
+ * This class is thread safe.
+ */
+public final class LazyMessageInfo {
+  /**
+   * The array that holds the encoded message, released once the message is decoded
+   */
+  private byte[] data;
+
+  /**
+   * The index of {@link LazyMessageInfo#data} where the encoded message starts
+   */
+  private final int offset;
+
+  /**
+   * The length of the encoded message
+   */
+  private final int length;
+
+  /**
+   * The decoded message, null until {@link LazyMessageInfo#get()} is called
+   */
+  private volatile MessageInfo message;
+
+  /**
+   * The partially decoded key, null until {@link LazyMessageInfo#key()} is called
+   */
+  private volatile MessageKey key;
+
+  /**
+   * Constructs a new holder for an encoded {@link MessageInfo}
+   * The bytes are not copied, so {@code data} must not be modified after calling this constructor
+   *
+   * @param data   the array that holds the encoded message
+   * @param offset the index of {@code data} where the encoded message starts
+   * @param length the length of the encoded message
+   */
+  public LazyMessageInfo(byte @NonNull [] data, int offset, int length) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    this.data = data;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Returns the decoded message, decoding it if this is the first time that this method is called
+   *
+   * @throws IllegalArgumentException if the message cannot be decoded
+   * @return a non null {@link MessageInfo}
+   */
+  public @NonNull MessageInfo get() {
+    var result = message;
+    if (result != null) {
+      return result;
+    }
+
+    synchronized (this) {
+      if (message == null) {
+        message = decode();
+        key = message.key();
+        data = null;
+      }
+
+      return message;
+    }
+  }
+
+  /**
+   * Returns whether the message has already been decoded
+   *
+   * @return true if {@link LazyMessageInfo#get()} was already called successfully
+   */
+  public boolean isDecoded() {
+    return message != null;
+  }
+
+  /**
+   * Returns the key of the message
+   * If the message hasn't been decoded yet, only the key is parsed
+   *
+   * @throws IllegalArgumentException if the key cannot be decoded
+   * @return a non null {@link MessageKey}
+   */
+  public @NonNull MessageKey key() {
+    var result = key;
+    if (result != null) {
+      return result;
+    }
+
+    synchronized (this) {
+      if (key == null) {
+        key = message != null ? message.key() : decodeKey();
+      }
+
+      return key;
+    }
+  }
+
+  @SneakyThrows
+  private @NonNull MessageInfo decode() {
+    var encoded = Arrays.copyOfRange(data, offset, offset + length);
+    try {
+      return ProtobufDecoder.forType(MessageInfo.class).decode(encoded);
+    } catch (RuntimeException ex) {
+      throw new IllegalArgumentException("Cannot deserialize %s".formatted(ProtobufDecoder.forType(MessageInfo.class).decodeAsJson(encoded)), ex);
+    }
+  }
+
+  private @NonNull MessageKey decodeKey() {
+    var reader = new KeyReader(data, offset, offset + length);
+    while (reader.hasNext()) {
+      var tag = reader.readVarInt();
+      if (tag >>> 3 != 1 || (tag & 7) != 2) {
+        reader.skip((int) tag & 7);
+        continue;
+      }
+
+      var keyLength = reader.readLength();
+      return reader.slice(keyLength).readKey();
+    }
+
+    throw new IllegalArgumentException("Cannot deserialize message key: missing field");
+  }
+
+  /**
+   * A minimal protobuf reader used to parse a {@link MessageKey} without decoding the whole message
+   */
+  private static final class KeyReader {
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    private KeyReader(byte[] data, int position, int limit) {
+      this.data = data;
+      this.position = position;
+      this.limit = limit;
+    }
+
+    private boolean hasNext() {
+      return position < limit;
+    }
+
+    private long readVarInt() {
+      var result = 0L;
+      for (var shift = 0; shift < 64; shift += 7) {
+        checkAvailable(1);
+        var current = data[position++];
+        result |= (long) (current & 0x7f) << shift;
+        if ((current & 0x80) == 0) {
+          return result;
+        }
+      }
+
+      throw new IllegalArgumentException("Cannot deserialize message key: malformed varint");
+    }
+
+    private int readLength() {
+      var result = readVarInt();
+      if (result < 0 || result > limit - position) {
+        throw new IllegalArgumentException("Cannot deserialize message key: truncated field");
+      }
+
+      return (int) result;
+    }
+
+    private void skip(int wireType) {
+      switch (wireType) {
+        case 0 -> readVarInt();
+        case 1 -> advance(8);
+        case 2 -> advance(readLength());
+        case 5 -> advance(4);
+        default -> throw new IllegalArgumentException("Cannot deserialize message key: unsupported wire type %s".formatted(wireType));
+      }
+    }
+
+    private void advance(int length) {
+      checkAvailable(length);
+      position += length;
+    }
+
+    private @NonNull KeyReader slice(int length) {
+      var result = new KeyReader(data, position, position + length);
+      position += length;
+      return result;
+    }
+
+    private @NonNull String readString() {
+      var length = readLength();
+      var result = new String(data, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return result;
+    }
+
+    private @NonNull MessageKey readKey() {
+      var result = new MessageKey(null, null, false);
+      while (hasNext()) {
+        var tag = readVarInt();
+        var wireType = (int) tag & 7;
+        switch ((int) (tag >>> 3)) {
+          case 1 -> {
+            if (wireType == 2) result.chatJid(readString()); else skip(wireType);
+          }
+          case 2 -> {
+            if (wireType == 0) result.fromMe(readVarInt() != 0); else skip(wireType);
+          }
+          case 3 -> {
+            if (wireType == 2) result.id(readString()); else skip(wireType);
+          }
+          default -> skip(wireType);
+        }
+      }
+
+      return result;
+    }
+
+    private void checkAvailable(int length) {
+      if (length > limit - position) {
+        throw new IllegalArgumentException("Cannot deserialize message key: truncated field");
+      }
+    }
+  }
+}
@@ -1,48 +1,164 @@
 package it.auties.whatsapp4j.protobuf.message.model;
 
+import it.auties.whatsapp4j.manager.WhatsappDataManager;
+import it.auties.whatsapp4j.media.MediaCache;
+import it.auties.whatsapp4j.media.MediaUpload;
 import it.auties.whatsapp4j.protobuf.message.standard.*;
 import it.auties.whatsapp4j.utils.internal.CypherUtils;
+import it.auties.whatsapp4j.utils.internal.Validate;
 import it.auties.whatsapp4j.whatsapp.WhatsappAPI;
-import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.experimental.SuperBuilder;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * A model class that represents a WhatsappMessage sent by a contact and that holds media inside.
  * This class is only a model, this means that changing its values will have no real effect on WhatsappWeb's servers.
  * Instead, methods inside {@link WhatsappAPI} should be used.
  */
-@AllArgsConstructor
 @NoArgsConstructor
 @SuperBuilder(buildMethodName = "create")
 public abstract sealed class MediaMessage extends ContextualMessage permits AudioMessage, DocumentMessage, ImageMessage, StickerMessage, VideoMessage {
     /**
-     * The cached decoded media, by default null
+     * Returns the decoded media wrapped by this object.
+     * Decoded media are cached by {@link WhatsappDataManager#mediaCache()}, shared by all messages: if the same media was already decoded, for example because it was forwarded, it isn't downloaded again.
+     * Otherwise the encoded media that this object wraps is downloaded, decoded, cached and returned.
+     *
+     * @return a non null array of bytes, empty if the encoded media couldn't be downloaded
      */
-    private byte[] decodedMedia;
+    public byte @NonNull [] decodedMedia(){
+        if(fileSha256() == null){
+            return CypherUtils.mediaDecrypt(this);
+        }
+
+        try {
+            return mediaCache().load(fileSha256(), () -> CompletableFuture.completedFuture(CypherUtils.mediaDecrypt(this))).join();
+        }catch (CompletionException exception){
+            if(exception.getCause() instanceof RuntimeException cause){
+                throw cause;
+            }
+
+            throw exception;
+        }
+    }
 
     /**
-     * Returns the cached decoded media wrapped by this object if available.
-     * Otherwise the encoded media that this object wraps is decoded, cached and returned.
+     * Removes the media wrapped by this object from {@link WhatsappDataManager#mediaCache()}, then downloads, decodes, caches and returns it again.
      *
-     * @return a non null array of bytes
+     * @return a non null array of bytes, empty if the encoded media couldn't be downloaded
      */
-    public byte @NonNull [] decodedMedia(){
-        if(decodedMedia == null){
-            this.decodedMedia = CypherUtils.mediaDecrypt(this);
+    public byte @NonNull [] refreshMedia(){
+        if(fileSha256() != null){
+            mediaCache().invalidate(fileSha256());
         }
 
-        return decodedMedia;
+        return decodedMedia();
     }
 
     /**
-     * Decodes the encoded media that this object wraps, caches it and returns the decoded media.
+     * Asynchronously returns the decoded media wrapped by this object, using {@link WhatsappDataManager#mediaCache()} like {@link MediaMessage#decodedMedia()}.
+     * If the media isn't cached, the encoded media that this object wraps is downloaded using {@link WhatsappDataManager#mediaTransport()}, decoded, cached and returned.
+     * Unlike {@link MediaMessage#decodedMedia()}, a failed download completes the returned future exceptionally instead of producing an empty array.
      *
-     * @return a non null array of bytes
+     * @return a non null future completed with the decoded media
      */
-    public byte @NonNull [] refreshMedia(){
-        return this.decodedMedia = CypherUtils.mediaDecrypt(this);
+    public @NonNull CompletableFuture<byte[]> decodedMediaAsync(){
+        if(fileSha256() == null){
+            return CypherUtils.mediaDecryptAsync(this);
+        }
+
+        return mediaCache().load(fileSha256(), () -> CypherUtils.mediaDecryptAsync(this));
+    }
+
+    /**
+     * Decodes the encoded media that this object wraps into {@code path} without holding it in memory.
+     * The media is written to a temporary file in the same directory, from {@link WhatsappDataManager#mediaCache()} if it's cached or otherwise while it's being downloaded, without being cached.
+     * Said file is moved to {@code path} only once it has been written entirely and, if the media wasn't cached, its hmac has been validated, so {@code path} never holds a partial media.
+     *
+     * @param path the file where the decoded media should be saved, replaced if it already exists
+     * @return the number of decoded bytes that were written
+     * @throws SecurityException if the hmac of the encoded media is not valid, in which case {@code path} is left untouched
+     */
+    public long decodedMedia(@NonNull Path path){
+        return CypherUtils.writeAtomically(path, this::decodedMedia);
+    }
+
+    /**
+     * Decodes the encoded media that this object wraps into {@code channel} while it is being downloaded, without holding it in memory.
+     * The hmac of the encoded media can only be validated once it has been downloaded entirely: the bytes written to {@code channel} should be considered untrusted until this method returns.
+     * If the media is cached by {@link WhatsappDataManager#mediaCache()}, it's written from there.
+     * Otherwise the decoded media isn't cached. In both cases {@code channel} isn't closed.
+     *
+     * @param channel the channel where the decoded media should be written
+     * @return the number of decoded bytes that were written
+     * @throws SecurityException if the hmac of the encoded media is not valid
+     */
+    @SneakyThrows
+    public long decodedMedia(@NonNull WritableByteChannel channel){
+        var cached = cachedMedia();
+        if(cached.isPresent()){
+            var buffer = ByteBuffer.wrap(cached.get());
+            while (buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+
+            return cached.get().length;
+        }
+
+        return CypherUtils.mediaDecrypt(this, channel);
+    }
+
+    private @NonNull Optional<byte[]> cachedMedia(){
+        return fileSha256() == null ? Optional.empty() : mediaCache().get(fileSha256());
+    }
+
+    private static @NonNull MediaCache mediaCache(){
+        return WhatsappDataManager.singletonInstance().mediaCache();
+    }
+
+    /**
+     * Asynchronously encrypts and uploads {@code media} so that it can be wrapped by a new message built using its raw builder
+     *
+     * @param media the media to upload
+     * @param type  the type of the media
+     * @return a non null future completed with the upload
+     */
+    public static @NonNull CompletableFuture<MediaUpload> uploadAsync(byte @NonNull [] media, @NonNull MediaMessageType type){
+        return CypherUtils.mediaEncryptAsync(media, type);
+    }
+
+    /**
+     * Asynchronously encrypts and uploads the media saved in {@code mediaFile}, streaming it from disk, so that it can be wrapped by a new message built using its raw builder
+     *
+     * @param mediaFile the file to stream the media from
+     * @param type      the type of the media
+     * @return a non null future completed with the upload
+     */
+    public static @NonNull CompletableFuture<MediaUpload> uploadAsync(@NonNull Path mediaFile, @NonNull MediaMessageType type){
+        return CypherUtils.mediaEncryptAsync(mediaFile, type);
+    }
+
+    /**
+     * Encrypts and uploads the media that a new message should wrap.
+     * Exactly one between {@code media} and {@code mediaFile} should be specified: files are streamed from disk, so their size isn't bound by the heap.
+     *
+     * @param media     the media to upload from memory, or null
+     * @param mediaFile the file to stream the media from, or null
+     * @param type      the type of the media
+     * @return a non null upload
+     * @throws IllegalArgumentException if neither or both between {@code media} and {@code mediaFile} are specified
+     */
+    protected static @NonNull MediaUpload upload(byte[] media, Path mediaFile, @NonNull MediaMessageType type){
+        Validate.isTrue(media == null ^ mediaFile == null, "WhatsappAPI: Cannot upload %s media, exactly one between media and mediaFile should be specified", IllegalArgumentException.class, type.name().toLowerCase());
+        return media != null ? CypherUtils.mediaEncrypt(media, type) : CypherUtils.mediaEncrypt(mediaFile, type);
     }
 
     /**
@@ -4,12 +4,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import it.auties.whatsapp4j.protobuf.info.ContextInfo;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessage;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessageType;
-import it.auties.whatsapp4j.utils.internal.CypherUtils;
 import it.auties.whatsapp4j.whatsapp.WhatsappAPI;
 import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.experimental.SuperBuilder;
 
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.Optional;
 
@@ -99,7 +99,8 @@ public final class AudioMessage extends MediaMessage {
    * Constructs a new builder to create a AudioMessage.
    * The result can be later sent using {@link WhatsappAPI#sendMessage(it.auties.whatsapp4j.protobuf.info.MessageInfo)}
    *
-   * @param media         the non null image that the new message holds
+   * @param media         the image that the new message holds, or null if mediaFile is specified
+   * @param mediaFile     the file to stream the audio from, or null if media is specified
    * @param mimeType      the mime type of the new message, by default {@link MediaMessageType#defaultMimeType()}
    * @param contextInfo   the context info that the new message wraps
    * @param voiceMessage  whether the new message should be considered as a voice message or as a normal audio, by default the latter is used
@@ -107,8 +108,8 @@ public final class AudioMessage extends MediaMessage {
    * @return a non null new message
    */
   @Builder(builderClassName= "NewAudioMessageBuilder", builderMethodName = "newAudioMessage", buildMethodName = "create")
-  private static AudioMessage builder(byte @NonNull [] media, ContextInfo contextInfo, String mimeType, boolean voiceMessage) {
-    var upload = CypherUtils.mediaEncrypt(media, MediaMessageType.AUDIO);
+  private static AudioMessage builder(byte[] media, Path mediaFile, ContextInfo contextInfo, String mimeType, boolean voiceMessage) {
+    var upload = upload(media, mediaFile, MediaMessageType.AUDIO);
     return AudioMessage.builder()
             .fileSha256(upload.fileSha256())
             .fileEncSha256(upload.fileEncSha256())
@@ -116,7 +117,7 @@ public final class AudioMessage extends MediaMessage {
             .mediaKeyTimestamp(ZonedDateTime.now().toEpochSecond())
             .url(upload.url())
             .directPath(upload.directPath())
-            .fileLength(media.length)
+            .fileLength(upload.fileLength())
             .contextInfo(contextInfo)
             .mimetype(Optional.ofNullable(mimeType).orElse(MediaMessageType.AUDIO.defaultMimeType()))
             .streamingSidecar(upload.sidecar())
@@ -4,12 +4,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import it.auties.whatsapp4j.protobuf.info.ContextInfo;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessage;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessageType;
-import it.auties.whatsapp4j.utils.internal.CypherUtils;
 import it.auties.whatsapp4j.whatsapp.WhatsappAPI;
 import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.experimental.SuperBuilder;
 
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.Optional;
 
@@ -103,7 +103,8 @@ public final class DocumentMessage extends MediaMessage {
    * Constructs a new builder to create a DocumentMessage.
    * The result can be later sent using {@link WhatsappAPI#sendMessage(it.auties.whatsapp4j.protobuf.info.MessageInfo)}
    *
-   * @param media         the non null document that the new message wraps
+   * @param media         the document that the new message wraps, or null if mediaFile is specified
+   * @param mediaFile     the file to stream the document from, or null if media is specified
    * @param mimeType      the mime type of the new message, by default {@link MediaMessageType#defaultMimeType()}
    * @param title         the title of the document that the new message wraps
    * @param pageCount     the number of pages of the document that the new message wraps
@@ -114,8 +115,8 @@ public final class DocumentMessage extends MediaMessage {
    * @return a non null new message
    */
   @Builder(builderClassName = "NewDocumentMessageBuilder", builderMethodName = "newDocumentMessage", buildMethodName = "create")
-  private static DocumentMessage builder(byte @NonNull [] media, String mimeType, String title, int pageCount, String fileName, byte[] jpegThumbnail, ContextInfo contextInfo) {
-    var upload = CypherUtils.mediaEncrypt(media, MediaMessageType.DOCUMENT);
+  private static DocumentMessage builder(byte[] media, Path mediaFile, String mimeType, String title, int pageCount, String fileName, byte[] jpegThumbnail, ContextInfo contextInfo) {
+    var upload = upload(media, mediaFile, MediaMessageType.DOCUMENT);
     return DocumentMessage.builder()
             .fileSha256(upload.fileSha256())
             .fileEncSha256(upload.fileEncSha256())
@@ -123,7 +124,7 @@ public final class DocumentMessage extends MediaMessage {
             .mediaKeyTimestamp(ZonedDateTime.now().toEpochSecond())
             .url(upload.url())
             .directPath(upload.directPath())
-            .fileLength(media.length)
+            .fileLength(upload.fileLength())
             .mimetype(Optional.ofNullable(mimeType).orElse(MediaMessageType.DOCUMENT.defaultMimeType()))
             .fileName(fileName)
             .pageCount(pageCount)
@@ -6,12 +6,12 @@ import it.auties.whatsapp4j.protobuf.info.ContextInfo;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessage;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessageType;
 import it.auties.whatsapp4j.protobuf.model.InteractiveAnnotation;
-import it.auties.whatsapp4j.utils.internal.CypherUtils;
 import it.auties.whatsapp4j.whatsapp.WhatsappAPI;
 import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.experimental.SuperBuilder;
 
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -156,7 +156,8 @@ public final class ImageMessage extends MediaMessage {
    * Constructs a new builder to create a ImageMessage.
    * The result can be later sent using {@link WhatsappAPI#sendMessage(it.auties.whatsapp4j.protobuf.info.MessageInfo)}
    *
-   * @param media       the non null image that the new message wraps
+   * @param media       the image that the new message wraps, or null if mediaFile is specified
+   * @param mediaFile   the file to stream the image from, or null if media is specified
    * @param mimeType    the mime type of the new message, by default {@link MediaMessageType#defaultMimeType()}
    * @param caption     the caption of the new message
    * @param width       the width of the image that the new message wraps
@@ -166,8 +167,8 @@ public final class ImageMessage extends MediaMessage {
    * @return a non null new message
    */
   @Builder(builderClassName = "NewImageMessageBuilder", builderMethodName = "newImageMessage", buildMethodName = "create")
-  private static ImageMessage simpleBuilder(byte @NonNull [] media, String mimeType, String caption, int width, int height, ContextInfo contextInfo) {
-    var upload = CypherUtils.mediaEncrypt(media, MediaMessageType.IMAGE);
+  private static ImageMessage simpleBuilder(byte[] media, Path mediaFile, String mimeType, String caption, int width, int height, ContextInfo contextInfo) {
+    var upload = upload(media, mediaFile, MediaMessageType.IMAGE);
     return ImageMessage.newRawImageMessage()
             .fileSha256(upload.fileSha256())
             .fileEncSha256(upload.fileEncSha256())
@@ -175,7 +176,7 @@ public final class ImageMessage extends MediaMessage {
             .mediaKeyTimestamp(ZonedDateTime.now().toEpochSecond())
             .url(upload.url())
             .directPath(upload.directPath())
-            .fileLength(media.length)
+            .fileLength(upload.fileLength())
             .mimetype(Optional.ofNullable(mimeType).orElse(MediaMessageType.IMAGE.defaultMimeType()))
             .caption(caption)
             .width(width)
@@ -4,12 +4,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import it.auties.whatsapp4j.protobuf.info.ContextInfo;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessage;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessageType;
-import it.auties.whatsapp4j.utils.internal.CypherUtils;
 import it.auties.whatsapp4j.whatsapp.WhatsappAPI;
 import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.experimental.SuperBuilder;
 
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.Optional;
 
@@ -115,7 +115,8 @@ public final class StickerMessage extends MediaMessage {
    * Constructs a new builder to create a StickerMessage.
    * The result can be later sent using {@link WhatsappAPI#sendMessage(it.auties.whatsapp4j.protobuf.info.MessageInfo)}
    *
-   * @param media        the non null sticker that the new message wraps
+   * @param media        the sticker that the new message wraps, or null if mediaFile is specified
+   * @param mediaFile    the file to stream the sticker from, or null if media is specified
    * @param mimeType     the mime type of the new message, by default {@link MediaMessageType#defaultMimeType()}
    * @param pngThumbnail the thumbnail of the sticker that the new message wraps as a png
    * @param isAnimated   whether the sticker that the new message wraps is animated
@@ -124,8 +125,8 @@ public final class StickerMessage extends MediaMessage {
    * @return a non null new message
    */
   @Builder(builderClassName = "NewStickerMessageBuilder", builderMethodName = "newStickerMessage", buildMethodName = "create")
-  private static StickerMessage builder(byte @NonNull [] media, String mimeType, byte[] pngThumbnail, boolean isAnimated, ContextInfo contextInfo) {
-    var upload = CypherUtils.mediaEncrypt(media, MediaMessageType.STICKER);
+  private static StickerMessage builder(byte[] media, Path mediaFile, String mimeType, byte[] pngThumbnail, boolean isAnimated, ContextInfo contextInfo) {
+    var upload = upload(media, mediaFile, MediaMessageType.STICKER);
     return StickerMessage.builder()
             .fileSha256(upload.fileSha256())
             .fileEncSha256(upload.fileEncSha256())
@@ -133,7 +134,7 @@ public final class StickerMessage extends MediaMessage {
             .mediaKeyTimestamp(ZonedDateTime.now().toEpochSecond())
             .url(upload.url())
             .directPath(upload.directPath())
-            .fileLength(media.length)
+            .fileLength(upload.fileLength())
             .mimetype(Optional.ofNullable(mimeType).orElse(MediaMessageType.STICKER.defaultMimeType()))
             .firstFrameSidecar(upload.sidecar())
             .firstFrameLength(upload.sidecar().length)
@@ -7,16 +7,18 @@ import it.auties.whatsapp4j.protobuf.info.ContextInfo;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessage;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessageType;
 import it.auties.whatsapp4j.protobuf.model.InteractiveAnnotation;
-import it.auties.whatsapp4j.utils.internal.CypherUtils;
 import it.auties.whatsapp4j.utils.internal.Validate;
 import it.auties.whatsapp4j.whatsapp.WhatsappAPI;
 import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.experimental.SuperBuilder;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -145,7 +147,8 @@ public final class VideoMessage extends MediaMessage {
    * Constructs a new builder to create a VideoMessage that wraps a video.
    * The result can be later sent using {@link WhatsappAPI#sendMessage(it.auties.whatsapp4j.protobuf.info.MessageInfo)}
    *
-   * @param media       the non null video that the new message wraps
+   * @param media       the video that the new message wraps, or null if mediaFile is specified
+   * @param mediaFile   the file to stream the video from, or null if media is specified
    * @param mimeType    the mime type of the new message, by default {@link MediaMessageType#defaultMimeType()}
    * @param caption     the caption of the new message
    * @param width       the width of the video that the new message wraps
@@ -156,8 +159,8 @@ public final class VideoMessage extends MediaMessage {
    * @return a non null new message
    */
   @Builder(builderClassName = "NewVideoMessageBuilder", builderMethodName = "newVideoMessage", buildMethodName = "create")
-  private static VideoMessage videoBuilder(byte @NonNull [] media, String mimeType, String caption, int width, int height, int seconds, ContextInfo contextInfo) {
-    var upload = CypherUtils.mediaEncrypt(media, MediaMessageType.VIDEO);
+  private static VideoMessage videoBuilder(byte[] media, Path mediaFile, String mimeType, String caption, int width, int height, int seconds, ContextInfo contextInfo) {
+    var upload = upload(media, mediaFile, MediaMessageType.VIDEO);
     return VideoMessage.builder()
             .fileSha256(upload.fileSha256())
             .fileEncSha256(upload.fileEncSha256())
@@ -165,7 +168,7 @@ public final class VideoMessage extends MediaMessage {
             .mediaKeyTimestamp(ZonedDateTime.now().toEpochSecond())
             .url(upload.url())
             .directPath(upload.directPath())
-            .fileLength(media.length)
+            .fileLength(upload.fileLength())
             .mimetype(Optional.ofNullable(mimeType).orElse(MediaMessageType.VIDEO.defaultMimeType()))
             .caption(caption)
             .width(width)
@@ -181,7 +184,8 @@ public final class VideoMessage extends MediaMessage {
    * This is because Whatsapp doesn't support standard gifs.
    * The result can be later sent using {@link WhatsappAPI#sendMessage(it.auties.whatsapp4j.protobuf.info.MessageInfo)}
    *
-   * @param media       the non null video that the new message wraps
+   * @param media       the video that the new message wraps, or null if mediaFile is specified
+   * @param mediaFile   the file to stream the video from, or null if media is specified
    * @param mimeType    the mime type of the new message, by default {@link MediaMessageType#defaultMimeType()}
    * @param caption     the caption of the new message
    * @param width       the width of the video that the new message wraps
@@ -192,9 +196,9 @@ public final class VideoMessage extends MediaMessage {
    * @return a non null new message
    */
   @Builder(builderClassName = "NewGifMessageBuilder", builderMethodName = "newGifMessage", buildMethodName = "create")
-  private static VideoMessage gifBuilder(byte @NonNull [] media, String mimeType, String caption, int width, int height, VideoMessageAttribution gifAttribution, ContextInfo contextInfo) {
-    Validate.isTrue(!Objects.equals(guessMimeType(media), "image/gif") && !Objects.equals(mimeType, "image/gif"), "Cannot create a VideoMessage with mime type image/gif: gif messages on whatsapp are videos played as gifs");
-    var upload = CypherUtils.mediaEncrypt(media, MediaMessageType.VIDEO);
+  private static VideoMessage gifBuilder(byte[] media, Path mediaFile, String mimeType, String caption, int width, int height, VideoMessageAttribution gifAttribution, ContextInfo contextInfo) {
+    Validate.isTrue(!Objects.equals(guessMimeType(media, mediaFile), "image/gif") && !Objects.equals(mimeType, "image/gif"), "Cannot create a VideoMessage with mime type image/gif: gif messages on whatsapp are videos played as gifs");
+    var upload = upload(media, mediaFile, MediaMessageType.VIDEO);
     return VideoMessage.builder()
             .fileSha256(upload.fileSha256())
             .fileEncSha256(upload.fileEncSha256())
@@ -202,7 +206,7 @@ public final class VideoMessage extends MediaMessage {
             .mediaKeyTimestamp(ZonedDateTime.now().toEpochSecond())
             .url(upload.url())
             .directPath(upload.directPath())
-            .fileLength(media.length)
+            .fileLength(upload.fileLength())
             .mimetype(Optional.ofNullable(mimeType).orElse(MediaMessageType.VIDEO.defaultMimeType()))
             .caption(caption)
             .width(width)
@@ -214,10 +218,14 @@ public final class VideoMessage extends MediaMessage {
             .create();
   }
 
-  private static @NonNull String guessMimeType(byte[] media) {
+  private static @NonNull String guessMimeType(byte[] media, Path mediaFile) {
+    if (media == null && mediaFile == null) {
+      return "application/octet-stream";
+    }
+
     var result = "";
-    try {
-      result = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(media));
+    try (var input = media != null ? new ByteArrayInputStream(media) : new BufferedInputStream(Files.newInputStream(mediaFile))) {
+      result = URLConnection.guessContentTypeFromStream(input);
     } catch (IOException ignored) {
 
     }
@@ -2,25 +2,40 @@ package it.auties.whatsapp4j.protobuf.model;
 
 import it.auties.whatsapp4j.protobuf.info.MessageInfo;
 import it.auties.whatsapp4j.protobuf.message.model.Message;
+import it.auties.whatsapp4j.protobuf.message.model.MessageKey;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
 
 /**
- * This class is an implementation of ArrayList used to store the {@link Message} in a {@link it.auties.whatsapp4j.protobuf.chat.Chat}.
- * The messages stored in this collection are guaranteed to be stored chronologically.
- * This contract can be technically broken using reflection to access the array associated with this collection, though, obviously, it's not advisable.
+ * This class is an implementation of List used to store the {@link Message} in a {@link it.auties.whatsapp4j.protobuf.chat.Chat}.
+ * The messages stored in this collection are guaranteed to be stored chronologically and to have a unique {@link MessageKey#id()}.
+ * This collection is backed by a concurrent skip list ordered by timestamp and id, so insertions, replacements, removals and range queries run in logarithmic time and can be executed safely by multiple threads.
+ * Each message is also indexed by {@link MessageKey#id()} so that it can be queried using {@link Messages#findById(String)}, and so that {@link Messages#size()}, in constant time.
+ * Positional access, excluding the first and the last message, runs in linear time, so indexed loops over this collection run in quadratic time: iterators, {@link Messages#firstMessage()}, {@link Messages#lastMessage()} and {@link Messages#between(long, long)} should be preferred.
  */
 @NoArgsConstructor
-public class Messages extends ArrayList<MessageInfo> {
+public class Messages extends AbstractList<MessageInfo> {
     /**
      * The default comparator used to sort the entries in this collection
      */
-    private static final Comparator<MessageInfo> ENTRY_COMPARATOR = Comparator.comparingLong(MessageInfo::timestamp);
+    private static final Comparator<Position> ENTRY_COMPARATOR = Comparator.comparingLong(Position::timestamp)
+            .thenComparing(Position::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * The messages in this collection sorted chronologically
+     */
+    private final ConcurrentNavigableMap<Position, MessageInfo> messages = new ConcurrentSkipListMap<>(ENTRY_COMPARATOR);
+
+    /**
+     * An index that associates the id of each message in this collection to said message and its position
+     */
+    private final Map<String, IndexedMessage> index = new ConcurrentHashMap<>();
 
     /**
      * Constructs a new instance of WebMessageInfos from a WebMessageInfo
@@ -32,43 +47,272 @@ public class Messages extends ArrayList<MessageInfo> {
     }
 
     /**
-     * Adds {@code message} to this collection in the right position in order to respect the contract explained previously
+     * Queries the message in this collection whose id is equal to {@code id}
+     *
+     * @param id the id to search
+     * @return a non empty Optional containing the result if it is found otherwise an empty Optional
+     */
+    public @NonNull Optional<MessageInfo> findById(@NonNull String id) {
+        return Optional.ofNullable(index.get(id)).map(IndexedMessage::message);
+    }
+
+    /**
+     * Returns the first message in chronological terms in this collection
+     *
+     * @return a non empty optional if this collection isn't empty, otherwise an empty optional
+     */
+    public @NonNull Optional<MessageInfo> firstMessage() {
+        return Optional.ofNullable(messages.firstEntry()).map(Map.Entry::getValue);
+    }
+
+    /**
+     * Returns the last message in chronological terms in this collection
+     *
+     * @return a non empty optional if this collection isn't empty, otherwise an empty optional
+     */
+    public @NonNull Optional<MessageInfo> lastMessage() {
+        return Optional.ofNullable(messages.lastEntry()).map(Map.Entry::getValue);
+    }
+
+    /**
+     * Returns a live, chronologically sorted view of the messages in this collection sent between two timestamps
+     *
+     * @param fromTimestamp the timestamp, that is the seconds since {@link java.time.Instant#EPOCH}, to start from, inclusive
+     * @param toTimestamp   the timestamp, that is the seconds since {@link java.time.Instant#EPOCH}, to end at, inclusive
+     * @return a non null collection
+     */
+    public @NonNull Collection<MessageInfo> between(long fromTimestamp, long toTimestamp) {
+        var from = new Position(fromTimestamp, null);
+        return toTimestamp == Long.MAX_VALUE ? messages.tailMap(from, true).values()
+                : messages.subMap(from, true, new Position(toTimestamp + 1, null), false).values();
+    }
+
+    /**
+     * Adds {@code message} to this collection in the right position in order to respect the contract explained previously.
+     * If another entry in this collection has an id that matches the one of {@code message}, said entry is replaced.
      *
      * @param message the non null message to add to this collection
      * @return true if {@code message} was added successfully
      */
     @Override
     public boolean add(@NonNull MessageInfo message) {
-        var initialSize = size();
-        var insertionPoint = Collections.binarySearch(this, message, ENTRY_COMPARATOR);
-        super.add(insertionPoint > -1 ? insertionPoint : -insertionPoint - 1, message);
-        return size() != initialSize;
+        addOrReplace(message);
+        return true;
     }
 
     /**
-     * Adds {@code message} if no other entry in this collection has an jid that matches the one of {@code message}.
+     * Adds {@code message} if no other entry in this collection has an id that matches the one of {@code message}.
      * Otherwise, it removes said entry and adds {@code message}.
      *
      * @param message the non null message to add to this collection
      * @return true if {@code message} was replaced
      */
     public boolean addOrReplace(@NonNull MessageInfo message) {
-        var result = remove(message);
-        add(message);
-        return result;
+        var id = message.key().id();
+        var replaced = new boolean[1];
+        index.compute(id, (key, previous) -> {
+            if (previous != null) {
+                messages.remove(previous.position(), previous.message());
+                replaced[0] = true;
+            }
+
+            var position = new Position(message.timestamp(), id);
+            messages.put(position, message);
+            return new IndexedMessage(position, message);
+        });
+        return replaced[0];
     }
 
     /**
-     * Adds each entry of {@code collection} if no other entry in this collection has an jid that matches said entry's.
+     * Adds each entry of {@code collection} if no other entry in this collection has an id that matches said entry's.
      * Otherwise, it removes said entry and adds said entry.
      *
      * @param collection the collection to add to this collection
      */
     @Override
-    public boolean addAll(Collection<? extends MessageInfo> collection) {
+    public boolean addAll(@NonNull Collection<? extends MessageInfo> collection) {
         return collection.stream().map(this::addOrReplace).reduce(true, (a, b) -> a && b);
     }
 
+    /**
+     * Returns whether {@code object} is in this collection
+     *
+     * @param object the object to search
+     * @return true if {@code object} is a message in this collection
+     */
+    @Override
+    public boolean contains(Object object) {
+        return object instanceof MessageInfo message && findById(message.key().id()).filter(message::equals).isPresent();
+    }
+
+    /**
+     * Removes {@code object} from this collection and from the id index
+     *
+     * @param object the message to remove
+     * @return true if {@code object} was removed
+     */
+    @Override
+    public boolean remove(Object object) {
+        if (!(object instanceof MessageInfo message)) {
+            return false;
+        }
+
+        var removed = new boolean[1];
+        index.computeIfPresent(message.key().id(), (key, previous) -> {
+            if (!previous.message().equals(message)) {
+                return previous;
+            }
+
+            messages.remove(previous.position(), previous.message());
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Removes the message at {@code position} from this collection and from the id index
+     *
+     * @param position the position of the message to remove
+     * @return the removed message
+     */
+    @Override
+    public MessageInfo remove(int position) {
+        var message = get(position);
+        remove(message);
+        return message;
+    }
+
+    /**
+     * Removes every message that satisfies {@code filter} from this collection and from the id index
+     *
+     * @param filter the predicate used to select the messages to remove
+     * @return true if any message was removed
+     */
+    @Override
+    public boolean removeIf(@NonNull Predicate<? super MessageInfo> filter) {
+        return messages.values()
+                .stream()
+                .filter(filter)
+                .toList()
+                .stream()
+                .map(this::remove)
+                .reduce(false, (a, b) -> a || b);
+    }
+
+    /**
+     * Removes every message contained in {@code collection} from this collection and from the id index
+     *
+     * @param collection the messages to remove
+     * @return true if any message was removed
+     */
+    @Override
+    public boolean removeAll(@NonNull Collection<?> collection) {
+        return removeIf(collection::contains);
+    }
+
+    /**
+     * Retains only the messages contained in {@code collection} in this collection and in the id index
+     *
+     * @param collection the messages to retain
+     * @return true if any message was removed
+     */
+    @Override
+    public boolean retainAll(@NonNull Collection<?> collection) {
+        return removeIf(message -> !collection.contains(message));
+    }
+
+    /**
+     * Removes every message from this collection and from the id index
+     */
+    @Override
+    public void clear() {
+        index.clear();
+        messages.clear();
+    }
+
+    /**
+     * Returns the message at {@code position} in chronological terms.
+     * This operation runs in constant time for the first and the last message and in linear time otherwise, walking from the nearest end of this collection.
+     *
+     * @param position the position of the message
+     * @return a non null message
+     * @throws IndexOutOfBoundsException if {@code position} is out of range
+     */
+    @Override
+    public MessageInfo get(int position) {
+        var size = size();
+        Objects.checkIndex(position, size);
+        var fromEnd = size - 1 - position;
+        var result = fromEnd < position ? messages.descendingMap().values().stream().skip(fromEnd).findFirst()
+                : messages.values().stream().skip(position).findFirst();
+        return result.orElseThrow(() -> new IndexOutOfBoundsException(position));
+    }
+
+    /**
+     * Returns the number of messages in this collection.
+     * This operation runs in constant time as the size of the id index is used, unlike {@link ConcurrentSkipListMap#size()} which traverses every message.
+     *
+     * @return an unsigned int
+     */
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns whether this collection is empty
+     *
+     * @return true if this collection doesn't contain any message
+     */
+    @Override
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the messages in this collection in chronological order
+     *
+     * @return a non null iterator
+     */
+    @Override
+    public @NonNull Iterator<MessageInfo> iterator() {
+        var iterator = messages.values().iterator();
+        return new Iterator<>() {
+            private MessageInfo last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public MessageInfo next() {
+                return last = iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+
+                Messages.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * This method is not supported for this collection because of the contract previously explained
+     *
+     * @throws UnsupportedOperationException this exception will always be thrown
+     */
+    @Override
+    public MessageInfo set(int index, MessageInfo element) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * This method is not supported for this collection because of the contract previously explained
      *
@@ -88,4 +332,22 @@ public class Messages extends ArrayList<MessageInfo> {
     public boolean addAll(int index, Collection<? extends MessageInfo> c) {
         throw new UnsupportedOperationException();
     }
-}
\ No newline at end of file
+
+    /**
+     * The key used to sort the messages in this collection
+     *
+     * @param timestamp the timestamp of the message when it was added
+     * @param id        the id of the message, null only for range bounds
+     */
+    private record Position(long timestamp, String id) {
+    }
+
+    /**
+     * An entry of the id index
+     *
+     * @param position the key of the message in the skip list
+     * @param message  the indexed message
+     */
+    private record IndexedMessage(@NonNull Position position, @NonNull MessageInfo message) {
+    }
+}
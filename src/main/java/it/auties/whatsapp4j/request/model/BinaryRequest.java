@@ -1,13 +1,11 @@
 package it.auties.whatsapp4j.request.model;
 
-import it.auties.whatsapp4j.binary.BinaryArray;
 import it.auties.whatsapp4j.binary.BinaryEncoder;
 import it.auties.whatsapp4j.binary.BinaryFlag;
 import it.auties.whatsapp4j.binary.BinaryMetric;
 import it.auties.whatsapp4j.manager.WhatsappKeysManager;
 import it.auties.whatsapp4j.protobuf.model.Node;
 import it.auties.whatsapp4j.response.model.common.ResponseModel;
-import it.auties.whatsapp4j.utils.internal.CypherUtils;
 import it.auties.whatsapp4j.whatsapp.WhatsappAPI;
 import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
 import jakarta.websocket.Session;
@@ -17,7 +15,7 @@ import lombok.experimental.Accessors;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Objects;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -27,11 +25,6 @@ import java.util.concurrent.CompletableFuture;
  */
 @Accessors(fluent = true, chain = true)
 public abstract non-sealed class BinaryRequest<M extends ResponseModel> extends Request<Node, M>{
-    /**
-     * An instance of the binary encoder
-     */
-    private static final BinaryEncoder ENCODER = new BinaryEncoder();
-    
     private final @NonNull @Getter Node node;
     private final @NonNull WhatsappKeysManager keys;
     private final @NonNull @Getter BinaryFlag flag;
@@ -88,17 +81,30 @@ public abstract non-sealed class BinaryRequest<M extends ResponseModel> extends
      * @return this request
      */
     public CompletableFuture<M> send(@NonNull Session session) {
+        return send(session, encode());
+    }
+
+    /**
+     * Sends this request, previously encoded using {@link BinaryRequest#encode()}, to the WebSocket linked to {@code session}.
+     * This allows a request to be encoded while a lock is held, for example to assign it an epoch, and to be written after said lock is released.
+     *
+     * @param session the WhatsappWeb's WebSocket session
+     * @param binaryMessage the frame returned by {@link BinaryRequest#encode()}
+     * @return this request
+     */
+    public CompletableFuture<M> send(@NonNull Session session, @NonNull ByteBuffer binaryMessage) {
+        addRequest();
         try{
-            var binaryMessage = encode();
             if (configuration.async()) {
-                session.getAsyncRemote().sendBinary(binaryMessage, __ -> addRequest());
+                session.getAsyncRemote().sendBinary(binaryMessage, result -> handleSendResult(result.getException()));
                 return future;
             }
 
             session.getBasicRemote().sendBinary(binaryMessage);
-            addRequest();
+            handleSendResult(null);
             return future;
         }catch (IOException exception){
+            handleSendResult(exception);
             throw new RuntimeException("An exception occurred while sending a binary message", exception);
         }
     }
@@ -108,16 +114,19 @@ public abstract non-sealed class BinaryRequest<M extends ResponseModel> extends
      *
      * @return a non null byte buffer
      */
-    private @NonNull ByteBuffer encode() {
-        var messageTag = BinaryArray.forString("%s,".formatted(tag()));
-        var encodedMessage = ENCODER.encodeMessage(buildBody());
-        var encrypted = CypherUtils.aesEncrypt(encodedMessage, Objects.requireNonNull(keys.encKey()));
-        var hmacSign = CypherUtils.hmacSha256(encrypted, Objects.requireNonNull(keys.macKey()));
-        return messageTag.merged(BinaryMetric.toArray(tags())
-                .merged(BinaryArray.singleton(flag().data())))
-                .merged(hmacSign)
-                .merged(encrypted)
-                .toBuffer();
+    public @NonNull ByteBuffer encode() {
+        var messageTag = "%s,".formatted(tag()).getBytes(StandardCharsets.UTF_8);
+        var encodedMessage = BinaryEncoder.forCurrentThread().encodeMessage(buildBody());
+        var cypher = keys.sessionCypher();
+        var frame = ByteBuffer.allocate(messageTag.length + tags().length + 1 + cypher.sealedSize(encodedMessage.length));
+        frame.put(messageTag);
+        for (var tag : tags()) {
+            frame.put((byte) tag.data());
+        }
+
+        frame.put((byte) flag().data());
+        cypher.seal(ByteBuffer.wrap(encodedMessage), frame);
+        return frame.flip();
     }
 
 }
@@ -55,17 +55,20 @@ public abstract non-sealed class JsonRequest<M extends JsonResponseModel> extend
             var body = buildBody();
             var json = JACKSON.writeValueAsString(body);
             var request = "%s,%s".formatted(tag, json);
+            addRequest();
             if (configuration.async()) {
-                session.getAsyncRemote().sendObject(request, __ -> addRequest());
+                session.getAsyncRemote().sendObject(request, result -> handleSendResult(result.getException()));
                 return future();
             }
 
             session.getBasicRemote().sendObject(request);
-            addRequest();
+            handleSendResult(null);
             return future();
         }catch (IOException exception){
+            handleSendResult(exception);
             throw new RuntimeException("An exception occurred while sending a JSON message", exception);
         }catch (EncodeException exception){
+            handleSendResult(exception);
             throw new RuntimeException("An exception occurred while encoding a JSON message", exception);
         }
     }
@@ -1,6 +1,8 @@
 package it.auties.whatsapp4j.request.model;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import it.auties.whatsapp4j.manager.RequestTimeoutException;
+import it.auties.whatsapp4j.manager.SessionClosedException;
 import it.auties.whatsapp4j.manager.WhatsappDataManager;
 import it.auties.whatsapp4j.protobuf.model.Node;
 import it.auties.whatsapp4j.response.model.common.Response;
@@ -16,6 +18,7 @@ import lombok.Setter;
 import lombok.experimental.Accessors;
 
 import java.lang.reflect.ParameterizedType;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -60,6 +63,27 @@ public sealed abstract class Request<B, M extends ResponseModel> permits BinaryR
      */
     protected @Getter @Setter boolean noResponse;
 
+    /**
+     * The nullable time to wait for a response before {@link Request#future} is completed exceptionally.
+     * If null, {@link WhatsappConfiguration#requestTimeout()} is used.
+     */
+    protected @Setter Duration timeout;
+
+    /**
+     * The longest timeout that can be measured using {@link System#nanoTime()}, longer timeouts never expire
+     */
+    private static final Duration MAX_TIMEOUT = Duration.ofNanos(Long.MAX_VALUE / 2);
+
+    /**
+     * Whether this request has a timeout, only meaningful if this request is pending
+     */
+    private volatile boolean expires;
+
+    /**
+     * The value of {@link System#nanoTime()} after which this request is considered expired, only meaningful if this request is pending and {@link Request#expires} is true
+     */
+    private volatile long deadline;
+
     /**
      * Constructs a new instance of a Request using a custom non null request tag
      *
@@ -105,6 +129,43 @@ public sealed abstract class Request<B, M extends ResponseModel> permits BinaryR
         future.completeAsync(() -> response.toModel(modelClass()));
     }
 
+    /**
+     * Returns the time to wait for a response before this request expires
+     *
+     * @return a non null duration, zero, negative or longer than about 146 years if this request never expires
+     */
+    public @NonNull Duration timeout(){
+        return timeout != null ? timeout : configuration.requestTimeout();
+    }
+
+    /**
+     * Returns whether this request is expired
+     *
+     * @param now the current value of {@link System#nanoTime()}
+     * @return true if this request has a timeout and it has elapsed
+     */
+    public boolean isExpired(long now){
+        return expires && now - deadline >= 0;
+    }
+
+    /**
+     * Completes this request exceptionally using a {@link RequestTimeoutException}
+     *
+     * @return true if this invocation caused {@link Request#future} to transition to a completed state
+     */
+    public boolean expire(){
+        return future.completeExceptionally(new RequestTimeoutException(tag, timeout()));
+    }
+
+    /**
+     * Completes this request exceptionally using a {@link SessionClosedException}, as the session it was sent to was closed before a response was received
+     *
+     * @return true if this invocation caused {@link Request#future} to transition to a completed state
+     */
+    public boolean cancel(){
+        return future.completeExceptionally(new SessionClosedException(tag));
+    }
+
     /**
      * Returns a Class representing the type parameter of this object
      * In order for this method to work, the implementations of the implementations of this class must also be abstract and initialized using only concrete types, generics will break this implementation
@@ -120,15 +181,36 @@ public sealed abstract class Request<B, M extends ResponseModel> permits BinaryR
     }
 
     /**
-     * Adds this request to {@link WhatsappDataManager#pendingRequests()} if {@link Request#noResponse()} is false
-     * Otherwise the future associated with this request is immediately resolved
+     * Adds this request to {@link WhatsappDataManager#pendingRequests()} if {@link Request#noResponse()} is false.
+     * This method must be called before the body of this request is sent, otherwise the response might be received before the request is registered.
      */
     protected void addRequest() {
         if(noResponse()){
-            future.complete(null);
             return;
         }
 
-        MANAGER.pendingRequests().add(this);
+        var timeout = timeout();
+        this.expires = !timeout.isZero() && !timeout.isNegative() && timeout.compareTo(MAX_TIMEOUT) <= 0;
+        this.deadline = expires ? System.nanoTime() + timeout.toNanos() : 0;
+        MANAGER.addPendingRequest(this);
+    }
+
+    /**
+     * Handles the outcome of sending the body of this request.
+     * If the body was sent successfully and {@link Request#noResponse()} is true, the future associated with this request is immediately resolved.
+     * If the body couldn't be sent, this request is removed from {@link WhatsappDataManager#pendingRequests()} and the future associated with it is completed exceptionally.
+     *
+     * @param error the nullable exception thrown while sending the body of this request
+     */
+    protected void handleSendResult(Throwable error) {
+        if(error != null){
+            MANAGER.removePendingRequest(this);
+            future.completeExceptionally(error);
+            return;
+        }
+
+        if(noResponse()){
+            future.complete(null);
+        }
     }
 }
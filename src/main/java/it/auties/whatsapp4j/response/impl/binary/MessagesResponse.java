@@ -1,6 +1,6 @@
 package it.auties.whatsapp4j.response.impl.binary;
 
-import it.auties.whatsapp4j.protobuf.info.MessageInfo;
+import it.auties.whatsapp4j.protobuf.info.LazyMessageInfo;
 import it.auties.whatsapp4j.protobuf.model.Messages;
 import it.auties.whatsapp4j.protobuf.model.Node;
 import it.auties.whatsapp4j.response.model.binary.BinaryResponseModel;
@@ -34,8 +34,9 @@ public final class MessagesResponse extends BinaryResponseModel<Messages> {
                 .stream()
                 .filter(childNode -> childNode.description().equals("message"))
                 .map(Node::content)
-                .filter(childContent -> childContent instanceof MessageInfo)
-                .map(MessageInfo.class::cast)
+                .filter(childContent -> childContent instanceof LazyMessageInfo)
+                .map(LazyMessageInfo.class::cast)
+                .map(LazyMessageInfo::get)
                 .collect(Collectors.toCollection(Messages::new));
     }
 }
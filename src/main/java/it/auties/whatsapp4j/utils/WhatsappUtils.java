@@ -8,7 +8,7 @@ import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
-import java.net.URL;
+import java.net.URI;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -46,7 +46,7 @@ public class WhatsappUtils {
      * @return a non null String
      */
     public @NonNull String parseJid(@NonNull String jid) {
-        return jid.replaceAll("@c.us", "@s.whatsapp.net");
+        return jid.endsWith("@c.us") ? jid.substring(0, jid.length() - 5) + "@s.whatsapp.net" : jid;
     }
 
     /**
@@ -111,14 +111,14 @@ public class WhatsappUtils {
     }
 
     /**
-     * Returns a binary array containing an encrypted media
+     * Returns a binary array containing an encrypted media, downloaded using {@link WhatsappDataManager#mediaTransport()}
      *
      * @param url the url of the encrypted media to download
      * @return a non empty optional if the media is available
      */
     public @NonNull Optional<BinaryArray> readEncryptedMedia(@NonNull String url) {
         try {
-            return Optional.of(BinaryArray.forArray(new URL(url).openStream().readAllBytes()));
+            return Optional.of(BinaryArray.forArray(WhatsappDataManager.singletonInstance().mediaTransport().download(URI.create(url)).join()));
         } catch (Exception e) {
             return Optional.empty();
         }
@@ -2,11 +2,12 @@ package it.auties.whatsapp4j.utils.internal;
 
 import it.auties.whatsapp4j.binary.BinaryArray;
 import it.auties.whatsapp4j.manager.WhatsappDataManager;
+import it.auties.whatsapp4j.media.MediaTransport;
 import it.auties.whatsapp4j.media.MediaUpload;
+import it.auties.whatsapp4j.media.MediaUploadRegistry;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessage;
 import it.auties.whatsapp4j.protobuf.message.model.MediaMessageType;
 import it.auties.whatsapp4j.response.model.json.JsonResponse;
-import it.auties.whatsapp4j.utils.WhatsappUtils;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
@@ -23,14 +24,30 @@ import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.*;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
  * This utility class provides helper functionality to easily encrypt and decrypt data
@@ -38,7 +55,6 @@ import java.util.Optional;
  */
 @UtilityClass
 public class CypherUtils {
-    private final HttpClient CLIENT = HttpClient.newHttpClient();
     private final String XDH = "XDH";
     private final String CURVE = "X25519";
     private final String HMAC_SHA256 = "HmacSHA256";
@@ -47,6 +63,22 @@ public class CypherUtils {
     private final String SHA256 = "SHA-256";
     private final String HKDF = "HKDF-Salt";
     private final int BLOCK_SIZE = 16;
+    private final int MEDIA_CHUNK_SIZE = 64 * 1024;
+    private final int MEDIA_MAC_SIZE = 10;
+    private final int SIDECAR_CHUNK_SIZE = 80;
+    private final int PARALLEL_SIDECAR_THRESHOLD = 1024 * 1024;
+    private final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(CypherUtils::createMac);
+    private final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(CypherUtils::createCipher);
+
+    @SneakyThrows
+    private @NonNull Mac createMac() {
+        return Mac.getInstance(HMAC_SHA256);
+    }
+
+    @SneakyThrows
+    private @NonNull Cipher createCipher() {
+        return Cipher.getInstance(AES_ALGORITHM);
+    }
 
     @SneakyThrows
     @NonNull
@@ -75,9 +107,10 @@ public class CypherUtils {
 
     @SneakyThrows
     public @NonNull BinaryArray hmacSha256(@NonNull BinaryArray plain, @NonNull BinaryArray key) {
-        final var localMac = Mac.getInstance(HMAC_SHA256);
-        localMac.init(new SecretKeySpec(key.data(), HMAC_SHA256));
-        return BinaryArray.forArray(localMac.doFinal(plain.data()));
+        final var localMac = MAC.get();
+        localMac.init(new SecretKeySpec(key.array(), key.offset(), key.size(), HMAC_SHA256));
+        localMac.update(plain.array(), plain.offset(), plain.size());
+        return BinaryArray.forArray(localMac.doFinal());
     }
 
     @SneakyThrows
@@ -87,7 +120,7 @@ public class CypherUtils {
 
     @SneakyThrows
     public @NonNull BinaryArray hkdfExpand(@NonNull BinaryArray input, byte[] data, int size) {
-        var hmac = Mac.getInstance(HMAC_SHA256);
+        var hmac = MAC.get();
         var hmacLength = hmac.getMacLength();
 
         var salt = new SecretKeySpec(new byte[hmacLength], HKDF);
@@ -121,10 +154,11 @@ public class CypherUtils {
 
     @SneakyThrows
     public @NonNull BinaryArray aesDecrypt(@NonNull BinaryArray iv, @NonNull BinaryArray encrypted, @NonNull BinaryArray secretKey) {
-        final var cipher = Cipher.getInstance(AES_ALGORITHM);
-        final var keySpec = new SecretKeySpec(secretKey.data(), AES);
-        cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(iv.data()));
-        return BinaryArray.forArray(cipher.doFinal(encrypted.slice(BLOCK_SIZE).data()));
+        final var cipher = CIPHER.get();
+        final var keySpec = new SecretKeySpec(secretKey.array(), secretKey.offset(), secretKey.size(), AES);
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(iv.array(), iv.offset(), iv.size()));
+        final var payload = encrypted.slice(BLOCK_SIZE);
+        return BinaryArray.forArray(cipher.doFinal(payload.array(), payload.offset(), payload.size()));
     }
 
     @SneakyThrows
@@ -134,9 +168,9 @@ public class CypherUtils {
 
     @SneakyThrows
     public @NonNull BinaryArray aesEncrypt(@NonNull BinaryArray iv, byte @NonNull [] decrypted, @NonNull BinaryArray encKey, boolean withIv) {
-        final var cipher = Cipher.getInstance(AES_ALGORITHM);
-        final var keySpec = new SecretKeySpec(encKey.data(), AES);
-        cipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(iv.data()));
+        final var cipher = CIPHER.get();
+        final var keySpec = new SecretKeySpec(encKey.array(), encKey.offset(), encKey.size(), AES);
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(iv.array(), iv.offset(), iv.size()));
 
         var result = BinaryArray.forArray(cipher.doFinal(decrypted));
         return withIv ? iv.merged(result) : result;
@@ -149,68 +183,319 @@ public class CypherUtils {
     }
 
     @SneakyThrows
+    public byte @NonNull [] sha256(@NonNull Path file) {
+        final var digest = MessageDigest.getInstance(SHA256);
+        try (var input = Files.newInputStream(file)) {
+            var buffer = new byte[MEDIA_CHUNK_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return digest.digest();
+    }
+
     public byte @NonNull [] mediaDecrypt(@NonNull MediaMessage mediaMessage) {
-        return WhatsappUtils.readEncryptedMedia(mediaMessage.url())
-                .map(data -> mediaDecrypt(mediaMessage, data))
-                .orElse(new byte[0]);
+        var output = new ByteArrayOutputStream((int) Math.min(Math.max(mediaMessage.fileLength(), 0), Integer.MAX_VALUE - 8));
+        try (var input = mediaTransport().openDownload(URI.create(mediaMessage.url()))) {
+            mediaDecrypt(mediaMessage, input, Channels.newChannel(output));
+            return output.toByteArray();
+        } catch (IOException exception) {
+            return new byte[0];
+        }
     }
 
-    private byte @NonNull [] mediaDecrypt(@NonNull MediaMessage mediaMessage, @NonNull BinaryArray data){
+    @SneakyThrows
+    public long mediaDecrypt(@NonNull MediaMessage mediaMessage, @NonNull WritableByteChannel output) {
+        try (var input = mediaTransport().openDownload(URI.create(mediaMessage.url()))) {
+            return mediaDecrypt(mediaMessage, input, output);
+        }
+    }
+
+    public @NonNull CompletableFuture<byte[]> mediaDecryptAsync(@NonNull MediaMessage mediaMessage) {
+        return mediaTransport()
+                .download(URI.create(mediaMessage.url()))
+                .thenApply(data -> mediaDecrypt(mediaMessage, data));
+    }
+
+    @SneakyThrows
+    private byte @NonNull [] mediaDecrypt(@NonNull MediaMessage mediaMessage, byte @NonNull [] data) {
+        var output = new ByteArrayOutputStream(Math.max(data.length - MEDIA_MAC_SIZE, 0));
+        mediaDecrypt(mediaMessage, new ByteArrayInputStream(data), Channels.newChannel(output));
+        return output.toByteArray();
+    }
+
+    @SneakyThrows
+    public long writeAtomically(@NonNull Path output, @NonNull ToLongFunction<WritableByteChannel> writer) {
+        var target = output.toAbsolutePath();
+        var temp = Files.createTempFile(target.getParent(), ".%s".formatted(target.getFileName()), ".part");
+        try {
+            long written;
+            try (var channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = writer.applyAsLong(channel);
+            }
+
+            moveReplacing(temp, target);
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void moveReplacing(@NonNull Path source, @NonNull Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @SneakyThrows
+    public long mediaDecrypt(@NonNull MediaMessage mediaMessage, @NonNull InputStream input, @NonNull WritableByteChannel output) {
         var expandedMediaKey = hkdfExpand(BinaryArray.forArray(mediaMessage.mediaKey()), mediaMessage.type().key(), 112);
         var iv = expandedMediaKey.slice(0, BLOCK_SIZE);
         var cypherKey = expandedMediaKey.slice(BLOCK_SIZE, 48);
         var macKey = expandedMediaKey.slice(48, 80);
 
-        var file = data.cut(-10);
-        var mac = data.slice(-10);
+        var mac = MAC.get();
+        mac.init(new SecretKeySpec(macKey.array(), macKey.offset(), macKey.size(), HMAC_SHA256));
+        mac.update(iv.array(), iv.offset(), iv.size());
+
+        var cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(cypherKey.array(), cypherKey.offset(), cypherKey.size(), AES), new IvParameterSpec(iv.array(), iv.offset(), iv.size()));
+
+        var buffer = new byte[MEDIA_CHUNK_SIZE + MEDIA_MAC_SIZE];
+        var decrypted = ByteBuffer.allocate(MEDIA_CHUNK_SIZE + BLOCK_SIZE);
+        var available = 0;
+        var written = 0L;
+        int read;
+        while ((read = input.read(buffer, available, buffer.length - available)) != -1) {
+            available += read;
+            var processable = available - MEDIA_MAC_SIZE;
+            if (processable <= 0) {
+                continue;
+            }
+
+            mac.update(buffer, 0, processable);
+            decrypted.clear().limit(cipher.update(buffer, 0, processable, decrypted.array()));
+            written += writeFully(decrypted, output);
+            System.arraycopy(buffer, processable, buffer, 0, MEDIA_MAC_SIZE);
+            available = MEDIA_MAC_SIZE;
+        }
 
-        var hmacValidation = hmacSha256(iv.merged(file), macKey).cut(10);
-        Validate.isTrue(hmacValidation.equals(mac), "Cannot login: Hmac validation failed!", SecurityException.class);
+        Validate.isTrue(available >= MEDIA_MAC_SIZE, "Cannot decode media: the encoded media is too short", SecurityException.class);
+        var processable = available - MEDIA_MAC_SIZE;
+        mac.update(buffer, 0, processable);
+        var hmacValidation = Arrays.copyOf(mac.doFinal(), MEDIA_MAC_SIZE);
+        Validate.isTrue(MessageDigest.isEqual(hmacValidation, Arrays.copyOfRange(buffer, processable, available)), "Cannot decode media: Hmac validation failed!", SecurityException.class);
 
-        return aesDecrypt(iv, file, cypherKey).data();
+        decrypted.clear().limit(cipher.doFinal(buffer, 0, processable, decrypted.array()));
+        return written + writeFully(decrypted, output);
+    }
+
+    private int writeFully(@NonNull ByteBuffer buffer, @NonNull WritableByteChannel output) throws IOException {
+        var length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+
+        return length;
     }
 
-    @SneakyThrows
     public @NonNull MediaUpload mediaEncrypt(byte @NonNull [] file, @NonNull MediaMessageType type) {
-        var connection = WhatsappDataManager.singletonInstance().mediaConnection();
+        return await(mediaUpload(file, type));
+    }
+
+    public @NonNull CompletableFuture<MediaUpload> mediaEncryptAsync(byte @NonNull [] file, @NonNull MediaMessageType type) {
+        return CompletableFuture.supplyAsync(() -> mediaUpload(file, type)).thenCompose(Function.identity());
+    }
+
+    public @NonNull MediaUpload mediaEncrypt(@NonNull Path file, @NonNull MediaMessageType type) {
+        return await(mediaUpload(file, type));
+    }
+
+    public @NonNull CompletableFuture<MediaUpload> mediaEncryptAsync(@NonNull Path file, @NonNull MediaMessageType type) {
+        return CompletableFuture.supplyAsync(() -> mediaUpload(file, type)).thenCompose(Function.identity());
+    }
+
+    public @NonNull MediaUpload mediaEncrypt(@NonNull InputStream file, @NonNull MediaMessageType type) {
+        return await(mediaUpload(file, null, type));
+    }
+
+    private @NonNull CompletableFuture<MediaUpload> mediaUpload(byte @NonNull [] file, @NonNull MediaMessageType type) {
+        var registry = mediaUploadRegistry();
+        if (registry.enabled()) {
+            var previous = registry.find(sha256(file), type);
+            if (previous.isPresent()) {
+                return CompletableFuture.completedFuture(previous.get());
+            }
+        }
+
+        var output = new ByteArrayOutputStream(file.length + BLOCK_SIZE + MEDIA_MAC_SIZE);
+        var encryption = mediaEncrypt(new ByteArrayInputStream(file), output, file.length > PARALLEL_SIDECAR_THRESHOLD ? macKey -> MediaSidecar.compute(file, macKey) : null, type);
+        var encFile = output.toByteArray();
+        return mediaUpload(encryption, encFile, HttpRequest.BodyPublishers.ofByteArray(encFile), type)
+                .thenApply(upload -> cacheUploadedMedia(upload, file));
+    }
+
+    private @NonNull MediaUpload cacheUploadedMedia(@NonNull MediaUpload upload, byte @NonNull [] file) {
+        WhatsappDataManager.singletonInstance().mediaCache().put(upload.fileSha256(), file);
+        return upload;
+    }
+
+    @SneakyThrows
+    private @NonNull CompletableFuture<MediaUpload> mediaUpload(@NonNull Path file, @NonNull MediaMessageType type) {
+        var registry = mediaUploadRegistry();
+        if (registry.enabled()) {
+            var previous = registry.find(sha256(file), type);
+            if (previous.isPresent()) {
+                return CompletableFuture.completedFuture(previous.get());
+            }
+        }
+
+        try (var input = Files.newInputStream(file)) {
+            return mediaUpload(input, Files.size(file) > PARALLEL_SIDECAR_THRESHOLD ? macKey -> MediaSidecar.compute(file, macKey) : null, type);
+        }
+    }
+
+    @SneakyThrows
+    private @NonNull CompletableFuture<MediaUpload> mediaUpload(@NonNull InputStream file, Function<Key, byte[]> parallelSidecar, @NonNull MediaMessageType type) {
+        var spool = Files.createTempFile("whatsapp4j", ".enc");
+        try {
+            MediaEncryption encryption;
+            try (var output = Files.newOutputStream(spool)) {
+                encryption = mediaEncrypt(file, output, parallelSidecar, type);
+            }
+
+            return mediaUpload(encryption, null, HttpRequest.BodyPublishers.ofFile(spool), type)
+                    .whenComplete((upload, error) -> deleteSpool(spool));
+        } catch (Throwable throwable) {
+            deleteSpool(spool);
+            throw throwable;
+        }
+    }
+
+    private void deleteSpool(@NonNull Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException ignored) {
+
+        }
+    }
+
+    @SneakyThrows
+    private @NonNull MediaEncryption mediaEncrypt(@NonNull InputStream input, @NonNull OutputStream output, Function<Key, byte[]> parallelSidecar, @NonNull MediaMessageType type) {
         var mediaKey = BinaryArray.random(32);
         var expandedMediaKey = hkdfExpand(mediaKey, type.key(), 112);
 
         var iv = expandedMediaKey.slice(0, BLOCK_SIZE);
         var cypherKey = expandedMediaKey.slice(BLOCK_SIZE, 48);
         var macKey = expandedMediaKey.slice(48, 80);
+        var macKeySpec = new SecretKeySpec(macKey.array(), macKey.offset(), macKey.size(), HMAC_SHA256);
 
-        var enc = aesEncrypt(iv, file, cypherKey, false);
-        var mac = hmacSha256(iv.merged(enc), macKey).cut(10);
-        var encFile = enc.merged(mac).data();
+        var mac = MAC.get();
+        mac.init(macKeySpec);
+        mac.update(iv.array(), iv.offset(), iv.size());
 
-        var fileSha256 = sha256(file);
-        var fileEncSha256 = sha256(encFile);
-        var sidecar = mediaSidecar(file, macKey);
+        var parallelSidecarTask = parallelSidecar == null ? null : ForkJoinPool.commonPool().submit(() -> parallelSidecar.apply(macKeySpec));
+        var sidecarMac = parallelSidecar == null ? createMac() : null;
+        if (sidecarMac != null) {
+            sidecarMac.init(macKeySpec);
+        }
 
-        var token = Base64.getUrlEncoder().withoutPadding().encodeToString(fileEncSha256);
-        var uri = URI.create("%s/%s?auth=%s&token=%s".formatted(type.url(), token, connection.auth(), token));
+        var cipher = CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(cypherKey.array(), cypherKey.offset(), cypherKey.size(), AES), new IvParameterSpec(iv.array(), iv.offset(), iv.size()));
+
+        var fileDigest = MessageDigest.getInstance(SHA256);
+        var encDigest = MessageDigest.getInstance(SHA256);
+        var sidecar = new ByteArrayOutputStream();
+        var buffer = new byte[MEDIA_CHUNK_SIZE];
+        var encrypted = new byte[MEDIA_CHUNK_SIZE + BLOCK_SIZE];
+        var sidecarPending = 0;
+        var fileLength = 0L;
+        int read;
+        while ((read = input.readNBytes(buffer, 0, buffer.length)) > 0) {
+            fileLength += read;
+            fileDigest.update(buffer, 0, read);
+            if (sidecarMac != null) {
+                sidecarPending = updateSidecar(sidecarMac, sidecar, buffer, read, sidecarPending);
+            }
+
+            var length = cipher.update(buffer, 0, read, encrypted);
+            writeEncrypted(encrypted, length, mac, encDigest, output);
+        }
+
+        if (sidecarPending != 0) {
+            sidecar.write(sidecarMac.doFinal(), 0, MEDIA_MAC_SIZE);
+        }
+
+        writeEncrypted(encrypted, cipher.doFinal(encrypted, 0), mac, encDigest, output);
+        var hmac = Arrays.copyOf(mac.doFinal(), MEDIA_MAC_SIZE);
+        encDigest.update(hmac);
+        output.write(hmac);
+
+        var sidecarResult = parallelSidecarTask != null ? parallelSidecarTask.join() : sidecar.toByteArray();
+        return new MediaEncryption(mediaKey, fileDigest.digest(), encDigest.digest(), sidecarResult, fileLength);
+    }
 
-        var request = HttpRequest.newBuilder().uri(uri).POST(HttpRequest.BodyPublishers.ofByteArray(encFile)).build();
+    private int updateSidecar(@NonNull Mac sidecarMac, @NonNull ByteArrayOutputStream sidecar, byte @NonNull [] buffer, int length, int pending) {
+        var offset = 0;
+        while (offset < length) {
+            var chunk = Math.min(SIDECAR_CHUNK_SIZE - pending, length - offset);
+            sidecarMac.update(buffer, offset, chunk);
+            offset += chunk;
+            pending += chunk;
+            if (pending == SIDECAR_CHUNK_SIZE) {
+                sidecar.write(sidecarMac.doFinal(), 0, MEDIA_MAC_SIZE);
+                pending = 0;
+            }
+        }
 
-        var response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-        var body = JsonResponse.fromJson(response.body());
-        var encodedUrl = body.getString("url").orElseThrow(() -> new RuntimeException("WhatsappAPI: Cannot upload media, missing url response %s".formatted(body)));
-        var directPath = body.getString("direct_path").orElseThrow(() -> new RuntimeException("WhatsappAPI: Cannot upload media, missing direct path response %s".formatted(body)));
+        return pending;
+    }
 
-        return new MediaUpload(encodedUrl, directPath, mediaKey, encFile, fileSha256, fileEncSha256, sidecar, type);
+    private void writeEncrypted(byte @NonNull [] encrypted, int length, @NonNull Mac mac, @NonNull MessageDigest encDigest, @NonNull OutputStream output) throws IOException {
+        mac.update(encrypted, 0, length);
+        encDigest.update(encrypted, 0, length);
+        output.write(encrypted, 0, length);
+    }
+
+    private @NonNull CompletableFuture<MediaUpload> mediaUpload(@NonNull MediaEncryption encryption, byte[] encFile, @NonNull HttpRequest.BodyPublisher body, @NonNull MediaMessageType type) {
+        var connection = WhatsappDataManager.singletonInstance().mediaConnection();
+        var token = Base64.getUrlEncoder().withoutPadding().encodeToString(encryption.fileEncSha256());
+        var uri = URI.create("%s/%s?auth=%s&token=%s".formatted(type.url(), token, connection.auth(), token));
+        return mediaTransport().upload(uri, body).thenApply(response -> {
+            var json = JsonResponse.fromJson(response);
+            var encodedUrl = json.getString("url").orElseThrow(() -> new RuntimeException("WhatsappAPI: Cannot upload media, missing url response %s".formatted(json)));
+            var directPath = json.getString("direct_path").orElseThrow(() -> new RuntimeException("WhatsappAPI: Cannot upload media, missing direct path response %s".formatted(json)));
+            var upload = new MediaUpload(encodedUrl, directPath, encryption.mediaKey(), encFile, encryption.fileSha256(), encryption.fileEncSha256(), encryption.sidecar(), type, encryption.fileLength());
+            mediaUploadRegistry().register(upload);
+            return upload;
+        });
+    }
+
+    private @NonNull MediaUploadRegistry mediaUploadRegistry() {
+        return WhatsappDataManager.singletonInstance().mediaUploadRegistry();
+    }
+
+    private @NonNull MediaTransport mediaTransport() {
+        return WhatsappDataManager.singletonInstance().mediaTransport();
     }
 
     @SneakyThrows
-    public byte @NonNull [] mediaSidecar(byte @NonNull [] file, @NonNull BinaryArray macKey) {
-        var input = new ByteArrayInputStream(file);
-        var output = new ByteArrayOutputStream();
-        var chunk = new byte[80];
-        while (input.read(chunk) != -1) {
-            var sign = hmacSha256(BinaryArray.forArray(chunk), macKey);
-            output.write(sign.cut(10).data());
+    private <T> T await(@NonNull CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            throw exception.getCause() != null ? exception.getCause() : exception;
         }
+    }
 
-        return output.toByteArray();
+    private record MediaEncryption(@NonNull BinaryArray mediaKey, byte @NonNull [] fileSha256, byte @NonNull [] fileEncSha256, byte @NonNull [] sidecar, long fileLength) {
+    }
+
+    public byte @NonNull [] mediaSidecar(byte @NonNull [] file, @NonNull BinaryArray macKey) {
+        return MediaSidecar.compute(file, new SecretKeySpec(macKey.array(), macKey.offset(), macKey.size(), HMAC_SHA256));
     }
-}
\ No newline at end of file
+}
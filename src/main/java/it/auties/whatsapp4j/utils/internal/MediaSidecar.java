@@ -0,0 +1,127 @@
+package it.auties.whatsapp4j.utils.internal;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.Key;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This utility class computes the sidecar of a media, that is the hmac of each of its 80 bytes chunks truncated to 10 bytes.
+ * As every chunk is signed independently, the media is split into ranges of whole chunks that are signed on the common fork join pool.
+ * Each range is signed by a single {@link Mac} that is reused for all of its chunks, so the result is identical to signing the chunks one at a time.
+ */
+@UtilityClass
+public class MediaSidecar {
+    private final String HMAC_SHA256 = "HmacSHA256";
+    private final int CHUNK_SIZE = 80;
+    private final int SIGNATURE_SIZE = 10;
+    private final int RANGE_CHUNKS = 4096;
+    private final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(MediaSidecar::createMac);
+    private final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[RANGE_CHUNKS * CHUNK_SIZE]);
+
+    @SneakyThrows
+    private @NonNull Mac createMac() {
+        return Mac.getInstance(HMAC_SHA256);
+    }
+
+    /**
+     * Computes the sidecar of {@code file}
+     *
+     * @param file   the media to sign
+     * @param macKey the hmac key of the media
+     * @return a non null array of bytes, ten for each started chunk of {@code file}
+     */
+    public byte @NonNull [] compute(byte @NonNull [] file, @NonNull Key macKey) {
+        var sidecar = new byte[sidecarSize(file.length)];
+        new SidecarTask(macKey, file.length, 0, chunks(file.length), (mac, from, length) -> signRange(mac, file, (int) from, length, sidecar, from)).invoke();
+        return sidecar;
+    }
+
+    /**
+     * Computes the sidecar of the media saved in {@code file}, reading each range with positional reads
+     *
+     * @param file   the media to sign
+     * @param macKey the hmac key of the media
+     * @return a non null array of bytes, ten for each started chunk of {@code file}
+     */
+    @SneakyThrows
+    public byte @NonNull [] compute(@NonNull Path file, @NonNull Key macKey) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var size = channel.size();
+            var sidecar = new byte[sidecarSize(size)];
+            new SidecarTask(macKey, size, 0, chunks(size), (mac, from, length) -> {
+                var buffer = BUFFER.get();
+                var view = ByteBuffer.wrap(buffer, 0, length);
+                while (view.hasRemaining()) {
+                    Validate.isTrue(channel.read(view, from + view.position()) != -1, "WhatsappAPI: Cannot compute sidecar, %s was truncated while being read", IllegalStateException.class, file);
+                }
+
+                signRange(mac, buffer, 0, length, sidecar, from);
+            }).invoke();
+            return sidecar;
+        }
+    }
+
+    private int sidecarSize(long fileLength) {
+        return Math.toIntExact(chunks(fileLength) * SIGNATURE_SIZE);
+    }
+
+    private long chunks(long fileLength) {
+        return (fileLength + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    @SneakyThrows
+    private void signRange(@NonNull Mac mac, byte @NonNull [] data, int offset, int length, byte @NonNull [] sidecar, long position) {
+        var signature = new byte[mac.getMacLength()];
+        var sidecarOffset = (int) (position / CHUNK_SIZE * SIGNATURE_SIZE);
+        for (var chunk = 0; chunk < length; chunk += CHUNK_SIZE) {
+            mac.update(data, offset + chunk, Math.min(CHUNK_SIZE, length - chunk));
+            mac.doFinal(signature, 0);
+            System.arraycopy(signature, 0, sidecar, sidecarOffset, SIGNATURE_SIZE);
+            sidecarOffset += SIGNATURE_SIZE;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeSigner {
+        void sign(@NonNull Mac mac, long from, int length) throws Exception;
+    }
+
+    private static final class SidecarTask extends RecursiveAction {
+        private final Key macKey;
+        private final long fileLength;
+        private final long fromChunk;
+        private final long toChunk;
+        private final RangeSigner signer;
+
+        private SidecarTask(@NonNull Key macKey, long fileLength, long fromChunk, long toChunk, @NonNull RangeSigner signer) {
+            this.macKey = macKey;
+            this.fileLength = fileLength;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.signer = signer;
+        }
+
+        @Override
+        @SneakyThrows
+        protected void compute() {
+            if (toChunk - fromChunk > RANGE_CHUNKS) {
+                var middle = fromChunk + (toChunk - fromChunk) / 2;
+                invokeAll(new SidecarTask(macKey, fileLength, fromChunk, middle, signer), new SidecarTask(macKey, fileLength, middle, toChunk, signer));
+                return;
+            }
+
+            var mac = MAC.get();
+            mac.init(macKey);
+            var from = fromChunk * CHUNK_SIZE;
+            signer.sign(mac, from, (int) (Math.min(toChunk * CHUNK_SIZE, fileLength) - from));
+        }
+    }
+}
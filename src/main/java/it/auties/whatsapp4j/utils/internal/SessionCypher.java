@@ -0,0 +1,160 @@
+package it.auties.whatsapp4j.utils.internal;
+
+import it.auties.whatsapp4j.binary.BinaryArray;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+
+/**
+ * This class holds the {@link Mac} and {@link Cipher} instances used to sign and encrypt the binary frames of a session.
+ * Frames are sealed and opened directly inside {@link ByteBuffer}s.
+ * Each thread gets its own instances: the {@link Mac} is keyed only once, as {@link Mac#doFinal()} resets it to its keyed state, while the {@link Cipher} only needs a new IV for each frame.
+ * An instance is bound to a pair of keys and should be replaced, not updated, when they change.
+ * This class is thread safe.
+ */
+public final class SessionCypher {
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final String AES = "AES";
+    private static final String AES_ALGORITHM = "AES/CBC/PKCS5PADDING";
+    private static final int BLOCK_SIZE = 16;
+    private static final int MAC_SIZE = 32;
+
+    /**
+     * The encryption key this object is bound to
+     */
+    private final @NonNull BinaryArray encKey;
+
+    /**
+     * The mac key this object is bound to
+     */
+    private final @NonNull BinaryArray macKey;
+
+    /**
+     * The spec of {@link SessionCypher#encKey}
+     */
+    private final @NonNull SecretKeySpec encKeySpec;
+
+    /**
+     * The mac instances of each thread, already keyed using {@link SessionCypher#macKey}
+     */
+    private final @NonNull ThreadLocal<Mac> macs;
+
+    /**
+     * The cipher instances of each thread
+     */
+    private final @NonNull ThreadLocal<Cipher> ciphers;
+
+    /**
+     * Constructs a new SessionCypher bound to {@code encKey} and {@code macKey}
+     *
+     * @param encKey the key used to encrypt and decrypt frames
+     * @param macKey the key used to sign frames
+     */
+    public SessionCypher(@NonNull BinaryArray encKey, @NonNull BinaryArray macKey) {
+        this.encKey = encKey;
+        this.macKey = macKey;
+        this.encKeySpec = new SecretKeySpec(encKey.array(), encKey.offset(), encKey.size(), AES);
+        var macKeySpec = new SecretKeySpec(macKey.array(), macKey.offset(), macKey.size(), HMAC_SHA256);
+        this.macs = ThreadLocal.withInitial(() -> createMac(macKeySpec));
+        this.ciphers = ThreadLocal.withInitial(SessionCypher::createCipher);
+    }
+
+    @SneakyThrows
+    private static @NonNull Mac createMac(@NonNull SecretKeySpec keySpec) {
+        var mac = Mac.getInstance(HMAC_SHA256);
+        mac.init(keySpec);
+        return mac;
+    }
+
+    @SneakyThrows
+    private static @NonNull Cipher createCipher() {
+        return Cipher.getInstance(AES_ALGORITHM);
+    }
+
+    /**
+     * Checks whether this object is bound to exactly {@code encKey} and {@code macKey}
+     *
+     * @param encKey the encryption key to check
+     * @param macKey the mac key to check
+     * @return true if both keys are the ones used to construct this object
+     */
+    public boolean isBoundTo(BinaryArray encKey, BinaryArray macKey) {
+        return this.encKey == encKey && this.macKey == macKey;
+    }
+
+    /**
+     * Returns the size of a frame sealed using {@link SessionCypher#seal(ByteBuffer, ByteBuffer)}
+     *
+     * @param plainLength the length of the data to seal
+     * @return the length of the signature, of the IV and of the padded encrypted data
+     */
+    public int sealedSize(int plainLength) {
+        return MAC_SIZE + BLOCK_SIZE + BLOCK_SIZE * (plainLength / BLOCK_SIZE + 1);
+    }
+
+    /**
+     * Encrypts the remaining bytes of {@code plain} using a random IV and signs the result
+     * The signature, the IV and the encrypted data are written in this order directly in {@code output}, starting at its position, so no intermediate array is allocated
+     * When this method returns, the position of {@code plain} is its limit and the position of {@code output} points to the first byte after the encrypted data
+     *
+     * @param plain  the data to encrypt
+     * @param output the buffer where the sealed frame is written, it must have at least {@link SessionCypher#sealedSize(int)} remaining bytes
+     */
+    @SneakyThrows
+    public void seal(@NonNull ByteBuffer plain, @NonNull ByteBuffer output) {
+        var signatureStart = output.position();
+        var ivStart = signatureStart + MAC_SIZE;
+        var iv = BinaryArray.random(BLOCK_SIZE);
+        output.position(ivStart).put(iv.array(), iv.offset(), iv.size());
+
+        var cipher = ciphers.get();
+        cipher.init(Cipher.ENCRYPT_MODE, encKeySpec, new IvParameterSpec(iv.array(), iv.offset(), iv.size()));
+        cipher.doFinal(plain, output);
+
+        var mac = macs.get();
+        mac.update(output.duplicate().limit(output.position()).position(ivStart));
+        output.put(signatureStart, mac.doFinal());
+    }
+
+    /**
+     * Verifies the signature of a frame sealed using {@link SessionCypher#seal(ByteBuffer, ByteBuffer)} and decrypts it in place
+     * The decrypted data overwrites the encrypted data inside {@code sealed}, so no intermediate array is allocated
+     *
+     * @param sealed the signature, the IV and the encrypted data, from its position to its limit
+     * @throws SecurityException if the signature is not valid
+     * @return a view of {@code sealed} containing only the decrypted data
+     */
+    @SneakyThrows
+    public @NonNull ByteBuffer open(@NonNull ByteBuffer sealed) {
+        Validate.isTrue(sealed.remaining() >= MAC_SIZE + BLOCK_SIZE, "Cannot read message: frame is too short", SecurityException.class);
+        var signature = sealed.slice(sealed.position(), MAC_SIZE);
+        var signed = sealed.slice(sealed.position() + MAC_SIZE, sealed.remaining() - MAC_SIZE);
+
+        var mac = macs.get();
+        mac.update(signed.duplicate());
+        Validate.isTrue(isSignatureValid(mac.doFinal(), signature), "Cannot read message: Hmac validation failed!", SecurityException.class);
+
+        var iv = new byte[BLOCK_SIZE];
+        signed.get(iv);
+        var encrypted = signed.slice();
+        var decrypted = encrypted.duplicate();
+        var cipher = ciphers.get();
+        cipher.init(Cipher.DECRYPT_MODE, encKeySpec, new IvParameterSpec(iv));
+        var length = cipher.doFinal(encrypted, decrypted);
+        return decrypted.flip().limit(length);
+    }
+
+    private boolean isSignatureValid(byte @NonNull [] expected, @NonNull ByteBuffer signature) {
+        var result = 0;
+        for (var index = 0; index < expected.length; index++) {
+            result |= expected[index] ^ signature.get(index);
+        }
+
+        return result == 0;
+    }
+}
@@ -0,0 +1,68 @@
+package it.auties.whatsapp4j.utils.internal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket rate limiter: tokens are added at a constant rate up to a maximum burst, and each permit consumes one token.
+ * Callers that find the bucket empty sleep, outside of any lock, until enough tokens have been added.
+ */
+public class TokenBucket {
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Constructs a new full bucket
+     *
+     * @param permitsPerSecond the rate at which tokens are added, a non positive value means that permits are never limited
+     * @param burst            the maximum number of tokens the bucket can hold, that is the number of permits that can be acquired at once after the bucket has been idle
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(burst, 1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Acquires a permit, blocking until a token is available
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        if (tokensPerNano <= 0) {
+            return;
+        }
+
+        while (true) {
+            var wait = tryAcquire();
+            if (wait == 0) {
+                return;
+            }
+
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Acquires a permit if a token is available
+     *
+     * @return zero if the permit was acquired, otherwise the number of nanoseconds to wait before a token is available
+     */
+    public synchronized long tryAcquire() {
+        if (tokensPerNano <= 0) {
+            return 0;
+        }
+
+        var now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+}
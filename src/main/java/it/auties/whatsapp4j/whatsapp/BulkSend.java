@@ -0,0 +1,324 @@
+package it.auties.whatsapp4j.whatsapp;
+
+import it.auties.whatsapp4j.binary.BinaryEncoder;
+import it.auties.whatsapp4j.protobuf.chat.Chat;
+import it.auties.whatsapp4j.protobuf.info.MessageInfo;
+import it.auties.whatsapp4j.protobuf.message.model.Message;
+import it.auties.whatsapp4j.protobuf.message.model.MessageContainer;
+import it.auties.whatsapp4j.protobuf.message.model.MessageKey;
+import it.auties.whatsapp4j.response.impl.json.MessageResponse;
+import it.auties.whatsapp4j.utils.internal.TokenBucket;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class represents a bulk send started using {@link WhatsappAPI#sendMessages(Stream, BulkSendOptions)}.
+ * Messages are taken from the input in order by a feeder thread and are then encoded ahead of time on a pool of {@link BulkSendOptions#workers()} threads.
+ * A single writer thread sends the encoded messages in the same order in which they were taken, pacing the writes using a {@link TokenBucket}.
+ * Each message is assigned its epoch only when it's written, using the same lock as {@link WhatsappAPI#sendMessage(MessageInfo)}, so that epochs reach WhatsappWeb in increasing order even if other messages are sent at the same time.
+ * At most {@link BulkSendOptions#maxInFlight()} messages are taken from the input and not yet acknowledged at any time, so the input is consumed lazily.
+ * The outcome of each message can be consumed using {@link BulkSend#outcomes()}, while aggregated statistics are available using {@link BulkSend#stats()} and {@link BulkSend#completion()}.
+ */
+@Log
+@Accessors(fluent = true)
+public class BulkSend {
+    private static final Outcome END_OF_OUTCOMES = new Outcome(null, null, null);
+    private static final Pending END_OF_INPUT = new Pending(null, null);
+
+    private final @NonNull BiFunction<MessageInfo, byte[], CompletableFuture<MessageResponse>> sender;
+    private final @NonNull BiConsumer<MessageInfo, MessageResponse> onSent;
+    private final @NonNull TokenBucket bucket;
+    private final @NonNull Semaphore inFlight;
+    private final @NonNull ExecutorService workers;
+    private final @NonNull BlockingQueue<Pending> pending;
+    private final @NonNull BlockingQueue<Outcome> outcomes;
+    private final @NonNull CompletableFuture<Stats> completion;
+    private final @NonNull AtomicLong submitted;
+    private final @NonNull AtomicLong succeeded;
+    private final @NonNull AtomicLong failed;
+    private final @NonNull AtomicBoolean consumed;
+    private final @NonNull AtomicBoolean finished;
+    private final @NonNull Thread feeder;
+    private final @NonNull Thread writer;
+    private final long start;
+    private volatile long end;
+    private volatile boolean drained;
+    private volatile boolean cancelled;
+    private volatile Throwable inputError;
+
+    /**
+     * Constructs and starts a new bulk send
+     *
+     * @param messages the pairs of chat and message to send
+     * @param options  the options used to pace and parallelize the bulk send
+     * @param sender   a function that assigns an epoch to a message and writes it, given its content encoded using {@link BinaryEncoder#encodeMessageInfo(MessageInfo)}
+     * @param onSent   a callback invoked for each message that WhatsappWeb acknowledged
+     */
+    BulkSend(@NonNull Stream<? extends Map.Entry<Chat, ? extends Message>> messages, @NonNull BulkSendOptions options,
+             @NonNull BiFunction<MessageInfo, byte[], CompletableFuture<MessageResponse>> sender, @NonNull BiConsumer<MessageInfo, MessageResponse> onSent) {
+        this.sender = sender;
+        this.onSent = onSent;
+        this.bucket = new TokenBucket(options.messagesPerSecond(), options.burst() > 0 ? options.burst() : (int) Math.ceil(options.messagesPerSecond()));
+        this.inFlight = new Semaphore(Math.max(options.maxInFlight(), 1));
+        this.workers = Executors.newFixedThreadPool(Math.max(options.workers(), 1), task -> daemon(task, "whatsapp-bulk-worker"));
+        this.pending = new LinkedBlockingQueue<>();
+        this.outcomes = new LinkedBlockingQueue<>();
+        this.completion = new CompletableFuture<>();
+        this.submitted = new AtomicLong();
+        this.succeeded = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.consumed = new AtomicBoolean();
+        this.finished = new AtomicBoolean();
+        this.start = System.nanoTime();
+        this.feeder = daemon(() -> feed(messages), "whatsapp-bulk-feeder");
+        this.writer = daemon(this::write, "whatsapp-bulk-writer");
+        feeder.start();
+        writer.start();
+    }
+
+    /**
+     * Returns a blocking stream of the outcome of each message, in the order in which WhatsappWeb acknowledged them
+     * The stream ends when every message taken from the input has an outcome, and it can be consumed only once
+     *
+     * @throws IllegalStateException if this method was already called
+     * @return a non null sequential stream
+     */
+    public @NonNull Stream<Outcome> outcomes() {
+        if (!consumed.compareAndSet(false, true)) {
+            throw new IllegalStateException("WhatsappAPI: Cannot consume the outcomes of a bulk send more than once");
+        }
+
+        var iterator = new Iterator<Outcome>() {
+            private Outcome next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = take();
+                }
+
+                return next != END_OF_OUTCOMES;
+            }
+
+            @Override
+            public Outcome next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                var result = next;
+                next = null;
+                return result;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns a future that completes when every message taken from the input has an outcome
+     * If the input stream threw an exception, the future is completed exceptionally with it after the messages already taken have an outcome
+     *
+     * @return a non null CompletableFuture that resolves in the final statistics of this bulk send
+     */
+    public @NonNull CompletableFuture<Stats> completion() {
+        return completion;
+    }
+
+    /**
+     * Returns the statistics of this bulk send up to now
+     *
+     * @return a non null snapshot of the statistics of this bulk send
+     */
+    public @NonNull Stats stats() {
+        var now = finished.get() ? end : System.nanoTime();
+        return new Stats(submitted.get(), succeeded.get(), failed.get(), Duration.ofNanos(now - start));
+    }
+
+    /**
+     * Stops taking messages from the input
+     * Messages that were already written keep waiting for their acknowledgment, while the ones that weren't are completed with a {@link CancellationException}
+     */
+    public void cancel() {
+        cancelled = true;
+        feeder.interrupt();
+    }
+
+    private void feed(@NonNull Stream<? extends Map.Entry<Chat, ? extends Message>> messages) {
+        try (messages) {
+            var iterator = messages.iterator();
+            while (!cancelled && iterator.hasNext()) {
+                inFlight.acquire();
+                var entry = iterator.next();
+                var message = new MessageInfo(new MessageKey(entry.getKey()), new MessageContainer(entry.getValue()));
+                submitted.incrementAndGet();
+                pending.add(new Pending(message, CompletableFuture.supplyAsync(() -> BinaryEncoder.encodeMessageInfo(message), workers)));
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable throwable) {
+            inputError = throwable;
+        } finally {
+            pending.add(END_OF_INPUT);
+        }
+    }
+
+    private void write() {
+        while (true) {
+            var next = takePending();
+            if (next == END_OF_INPUT) {
+                break;
+            }
+
+            if (cancelled) {
+                complete(next.message(), null, new CancellationException("WhatsappAPI: Bulk send was cancelled"));
+                continue;
+            }
+
+            try {
+                var content = next.content().join();
+                bucket.acquire();
+                sender.apply(next.message(), content).whenComplete((response, error) -> complete(next.message(), response, error));
+            } catch (InterruptedException exception) {
+                cancelled = true;
+                complete(next.message(), null, exception);
+            } catch (Throwable throwable) {
+                complete(next.message(), null, throwable);
+            }
+        }
+
+        drained = true;
+        finishIfDone();
+    }
+
+    private void complete(@NonNull MessageInfo message, MessageResponse response, Throwable error) {
+        var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        var success = cause == null && response != null && response.status() == 200;
+        try {
+            if (success) {
+                onSent.accept(message, response);
+            }
+        } catch (Throwable throwable) {
+            log.log(Level.WARNING, "WhatsappAPI: Cannot store message %s sent as part of a bulk send".formatted(message.key().id()), throwable);
+        } finally {
+            (success ? succeeded : failed).incrementAndGet();
+            outcomes.add(new Outcome(message, response, cause));
+            inFlight.release();
+            finishIfDone();
+        }
+    }
+
+    private void finishIfDone() {
+        if (!drained || succeeded.get() + failed.get() < submitted.get() || !finished.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.end = System.nanoTime();
+        workers.shutdown();
+        outcomes.add(END_OF_OUTCOMES);
+        if (inputError != null) {
+            completion.completeExceptionally(inputError);
+            return;
+        }
+
+        completion.complete(stats());
+    }
+
+    private @NonNull Pending takePending() {
+        while (true) {
+            try {
+                return pending.take();
+            } catch (InterruptedException exception) {
+                cancelled = true;
+            }
+        }
+    }
+
+    private @NonNull Outcome take() {
+        try {
+            return outcomes.take();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("WhatsappAPI: Interrupted while waiting for the outcome of a bulk send");
+        }
+    }
+
+    private static @NonNull Thread daemon(@NonNull Runnable task, @NonNull String name) {
+        var thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * The outcome of a message sent as part of a bulk send
+     *
+     * @param message  the message that was sent
+     * @param response the response of WhatsappWeb, null if {@code error} isn't
+     * @param error    the exception thrown while encoding or sending the message, null if WhatsappWeb responded
+     */
+    public record Outcome(MessageInfo message, MessageResponse response, Throwable error) {
+        /**
+         * Returns whether WhatsappWeb registered the message
+         *
+         * @return true if there is no error and the status of the response is 200
+         */
+        public boolean success() {
+            return error == null && response != null && response.status() == 200;
+        }
+    }
+
+    /**
+     * The aggregated statistics of a bulk send
+     *
+     * @param submitted the number of messages taken from the input
+     * @param succeeded the number of messages that WhatsappWeb registered
+     * @param failed    the number of messages that couldn't be sent or that WhatsappWeb refused
+     * @param elapsed   the time elapsed since the bulk send started, up to its completion
+     */
+    public record Stats(long submitted, long succeeded, long failed, @NonNull Duration elapsed) {
+        /**
+         * Returns the number of messages that have an outcome
+         *
+         * @return the sum of {@link Stats#succeeded()} and {@link Stats#failed()}
+         */
+        public long completed() {
+            return succeeded + failed;
+        }
+
+        /**
+         * Returns the average number of messages that completed each second
+         *
+         * @return a non negative throughput
+         */
+        public double messagesPerSecond() {
+            var nanos = elapsed.toNanos();
+            return nanos <= 0 ? 0 : completed() * 1_000_000_000D / nanos;
+        }
+    }
+
+    private record Pending(MessageInfo message, CompletableFuture<byte[]> content) {
+    }
+}
@@ -0,0 +1,56 @@
+package it.auties.whatsapp4j.whatsapp;
+
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * A configuration class used to specify the behaviour of {@link WhatsappAPI#sendMessages(java.util.stream.Stream, BulkSendOptions)}.
+ * Each field is immutable, this means that once this class has been initialized, cannot be changed.
+ * This class should be configured using its builder, accessible using {@link BulkSendOptions#builder()}.
+ */
+@Builder
+@Data
+@Accessors(fluent = true)
+public class BulkSendOptions {
+    /**
+     * The maximum number of messages written to WhatsappWeb's WebSocket each second, on average
+     * A non positive value means that writes are not paced
+     * By default, twenty messages are written each second
+     */
+    @Default
+    private final double messagesPerSecond = 20;
+
+    /**
+     * The maximum number of messages that can be written at once after no message has been written for a while
+     * A non positive value means that this value is equal to {@link BulkSendOptions#messagesPerSecond()}, rounded up
+     * By default, this value is equal to {@link BulkSendOptions#messagesPerSecond()}
+     */
+    @Default
+    private final int burst = 0;
+
+    /**
+     * The number of threads that encode messages ahead of the writes
+     * By default, one thread for each available processor is used
+     */
+    @Default
+    private final int workers = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of messages that can be in flight at once, that is taken from the input but not yet acknowledged by WhatsappWeb's WebSocket
+     * When this limit is reached, no more messages are taken from the input until a response arrives
+     * By default, up to 256 messages can be in flight
+     */
+    @Default
+    private final int maxInFlight = 256;
+
+    /**
+     * Constructs a new instance of BulkSendOptions with default options
+     *
+     * @return a new instance of BulkSendOptions with the above characteristics
+     */
+    public static BulkSendOptions defaultOptions() {
+        return BulkSendOptions.builder().build();
+    }
+}
@@ -27,17 +27,24 @@ import it.auties.whatsapp4j.response.impl.binary.MessagesResponse;
 import it.auties.whatsapp4j.response.impl.json.*;
 import it.auties.whatsapp4j.utils.internal.Validate;
 import it.auties.whatsapp4j.whatsapp.internal.WhatsappWebSocket;
+import jakarta.websocket.Session;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.experimental.Accessors;
 
+import java.nio.ByteBuffer;
 import java.time.ZonedDateTime;
 import java.time.chrono.ChronoZonedDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 import static it.auties.whatsapp4j.utils.WhatsappUtils.*;
 
@@ -53,6 +60,21 @@ public class WhatsappAPI {
     private final @NonNull WhatsappConfiguration configuration;
     private final @Getter @NonNull WhatsappDataManager manager;
 
+    /**
+     * The lock held while an epoch is assigned to a message and the message is queued in {@link WhatsappAPI#relayQueue}, so that messages sent from different threads are queued in the same order as their epochs
+     */
+    private final @NonNull Object relayLock = new Object();
+
+    /**
+     * The messages that were assigned an epoch and that are waiting to be written to WhatsappWeb's WebSocket, in the same order as their epochs
+     */
+    private final @NonNull Queue<Relay> relayQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The lock held by the only thread that writes the messages in {@link WhatsappAPI#relayQueue}, so that a slow write doesn't block the threads that queue messages
+     */
+    private final @NonNull ReentrantLock relayWriteLock = new ReentrantLock();
+
     /**
      * Creates a new WhatsappAPI with default configuration
      */
@@ -269,18 +291,69 @@ public class WhatsappAPI {
      * @return a CompletableFuture that resolves in a MessageResponse wrapping the status of the message request and, if the status == 200, the time in seconds the message was registered on the server
      */
     public @NonNull CompletableFuture<MessageResponse> sendMessage(@NonNull MessageInfo message) {
-        var node = new Node("action", attributes(attr("type", "relay"), attr("epoch", manager.tagAndIncrement())), List.of(new Node("message", attributes(), message)));
-        return new BinaryRequest<MessageResponse>(configuration, keys(), message.key().id(), node, BinaryFlag.IGNORE, BinaryMetric.MESSAGE) {}
-                .send(socket.session())
+        return relayMessage(message, message)
                 .thenApplyAsync(messageRes -> {
-                    if(messageRes.status() == 200){
-                        message.key().chat().ifPresent(chat -> chat.messages().add(message));
-                    }
-
+                    onMessageSent(message, messageRes);
                     return messageRes;
                 });
     }
 
+    /**
+     * Sends a stream of messages, each to its own chat, using the default {@link BulkSendOptions}
+     *
+     * @param messages the pairs of chat and message to send
+     * @return a BulkSend used to consume the outcome of each message and the aggregated statistics
+     */
+    public @NonNull BulkSend sendMessages(@NonNull Stream<? extends Map.Entry<Chat, ? extends Message>> messages) {
+        return sendMessages(messages, BulkSendOptions.defaultOptions());
+    }
+
+    /**
+     * Sends a stream of messages, each to its own chat.
+     * The messages are encoded ahead of time on a pool of threads, while they are assigned their epoch, encrypted and written in order and paced as described by {@code options}.
+     * Messages sent using {@link WhatsappAPI#sendMessage(MessageInfo)} while a bulk send is running are interleaved with the ones of the bulk send, though epochs are always written in increasing order.
+     * The stream is consumed lazily on another thread, so this method returns immediately.
+     *
+     * @param messages the pairs of chat and message to send
+     * @param options  the options used to pace and parallelize the bulk send
+     * @return a BulkSend used to consume the outcome of each message and the aggregated statistics
+     */
+    public @NonNull BulkSend sendMessages(@NonNull Stream<? extends Map.Entry<Chat, ? extends Message>> messages, @NonNull BulkSendOptions options) {
+        return new BulkSend(messages, options, this::relayMessage, this::onMessageSent);
+    }
+
+    private @NonNull CompletableFuture<MessageResponse> relayMessage(@NonNull MessageInfo message, @NonNull Object content) {
+        var session = socket.session();
+        BinaryRequest<MessageResponse> request;
+        synchronized (relayLock) {
+            var node = new Node("action", attributes(attr("type", "relay"), attr("epoch", manager.tagAndIncrement())), List.of(new Node("message", attributes(), content)));
+            request = new BinaryRequest<MessageResponse>(configuration, keys(), message.key().id(), node, BinaryFlag.IGNORE, BinaryMetric.MESSAGE) {};
+            relayQueue.add(new Relay(request, session, request.encode()));
+        }
+
+        writeRelayQueue();
+        return request.future();
+    }
+
+    private void writeRelayQueue() {
+        while (!relayQueue.isEmpty() && relayWriteLock.tryLock()) {
+            try {
+                Relay relay;
+                while ((relay = relayQueue.poll()) != null) {
+                    relay.write();
+                }
+            } finally {
+                relayWriteLock.unlock();
+            }
+        }
+    }
+
+    private void onMessageSent(@NonNull MessageInfo message, @NonNull MessageResponse response) {
+        if(response.status() == 200){
+            message.key().chat().ifPresent(chat -> manager.addSentMessage(chat, message));
+        }
+    }
+
     /**
      * Executes a query to determine whether a Whatsapp account linked
      * to the supplied phone number exists.
@@ -965,4 +1038,14 @@ public class WhatsappAPI {
         var node = new Node("query", attributes(attr("search", search), attr("jid", chat.jid()), attr("count", count), attr("epoch", manager.tagAndIncrement()), attr("page", page), attr("type", "search")), null);
         return new BinaryRequest<MessagesResponse>(configuration, keys(), node, BinaryFlag.IGNORE, BinaryMetric.QUERY_MESSAGES) {}.send(socket.session());
     }
+
+    private record Relay(@NonNull BinaryRequest<MessageResponse> request, Session session, @NonNull ByteBuffer frame) {
+        private void write() {
+            try {
+                request.send(session, frame);
+            } catch (Throwable throwable) {
+                request.future().completeExceptionally(throwable);
+            }
+        }
+    }
 }
@@ -2,12 +2,18 @@ package it.auties.whatsapp4j.whatsapp;
 
 import com.google.zxing.common.BitMatrix;
 import it.auties.whatsapp4j.binary.BinaryArray;
+import it.auties.whatsapp4j.binary.BinaryDecoder;
+import it.auties.whatsapp4j.protobuf.chat.Chat;
+import it.auties.whatsapp4j.protobuf.info.MessageInfo;
 import lombok.Builder;
 import lombok.Builder.Default;
 import lombok.Data;
 import lombok.NonNull;
 import lombok.experimental.Accessors;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -67,6 +73,139 @@ public class WhatsappConfiguration {
     @Default
     private final boolean async = true;
 
+    /**
+     * The default time to wait for a response to a request before the future associated with it is completed exceptionally with a {@link it.auties.whatsapp4j.manager.RequestTimeoutException}
+     * A single request can override this value, a zero or negative duration means that the request never expires
+     * By default, requests expire after one minute
+     */
+    @Default
+    private final @NonNull Duration requestTimeout = Duration.ofMinutes(1);
+
+    /**
+     * The maximum number of messages kept in memory for each chat, when it's exceeded the oldest messages are evicted first
+     * A non positive value means that no limit is enforced, this is the default behaviour
+     */
+    @Default
+    private final int maxMessagesPerChat = 0;
+
+    /**
+     * The maximum age of a message kept in memory, older messages are evicted
+     * A zero or negative duration means that no limit is enforced, this is the default behaviour
+     */
+    @Default
+    private final @NonNull Duration maxMessageAge = Duration.ZERO;
+
+    /**
+     * The maximum number of messages kept in memory across all chats, when it's exceeded the oldest messages of the least recently active chats are evicted first
+     * This limit is enforced periodically, so it can be temporarily exceeded
+     * A non positive value means that no limit is enforced, this is the default behaviour
+     */
+    @Default
+    private final int maxMessages = 0;
+
+    /**
+     * This consumer is called for each message evicted from memory because of the limits described above
+     * It can be used to spill said messages to a persistent storage so that they can be re-fetched later
+     * By default, evicted messages are discarded
+     */
+    @Default
+    private final @NonNull BiConsumer<Chat, MessageInfo> evictedMessageHandler = (chat, message) -> {};
+
+    /**
+     * The maximum nesting depth of a node received from WhatsappWeb's WebSocket, frames nested deeper are rejected
+     * By default, nodes can be nested up to 64 levels
+     */
+    @Default
+    private final int maxNodeDepth = BinaryDecoder.DEFAULT_MAX_DEPTH;
+
+    /**
+     * The maximum number of nodes that a single frame received from WhatsappWeb's WebSocket can contain, bigger frames are rejected
+     * By default, a frame can contain up to 1,000,000 nodes
+     */
+    @Default
+    private final int maxNodeCount = BinaryDecoder.DEFAULT_MAX_NODES;
+
+    /**
+     * The maximum time to wait for a connection to WhatsappWeb's media servers to be established
+     * By default, connections must be established in ten seconds
+     */
+    @Default
+    private final @NonNull Duration mediaConnectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * The maximum time to wait for the response headers of a media download or upload before it's considered failed
+     * By default, transfers must receive a response in one minute
+     */
+    @Default
+    private final @NonNull Duration mediaRequestTimeout = Duration.ofMinutes(1);
+
+    /**
+     * The maximum time a single attempt of a media download or upload, including the transfer of its body, can take before it's aborted and considered failed
+     * A zero or negative duration means that transfers have no deadline
+     * By default, each attempt must complete in five minutes
+     */
+    @Default
+    private final @NonNull Duration mediaTransferTimeout = Duration.ofMinutes(5);
+
+    /**
+     * The maximum time to wait for new data while reading a streamed media download before it's considered failed
+     * A zero or negative duration means that reads never time out
+     * By default, a read fails if no data is received for thirty seconds
+     */
+    @Default
+    private final @NonNull Duration mediaReadTimeout = Duration.ofSeconds(30);
+
+    /**
+     * The maximum number of media downloads and uploads to the same host that can run at the same time, the others are queued
+     * By default, eight transfers per host can run at the same time
+     */
+    @Default
+    private final int maxMediaConnectionsPerHost = 8;
+
+    /**
+     * The maximum number of times a media download or upload that failed because of an IO error, a timeout or a 429 or 5xx status code is retried
+     * By default, failed transfers are retried three times
+     */
+    @Default
+    private final int maxMediaRetries = 3;
+
+    /**
+     * The delay before the first retry of a failed media download or upload, doubled for each following retry
+     * By default, the first retry happens after half a second
+     */
+    @Default
+    private final @NonNull Duration mediaRetryBackoff = Duration.ofMillis(500);
+
+    /**
+     * The maximum number of bytes of decoded media shared by all messages that are kept in memory, the least recently used media are evicted first
+     * A non positive value disables the memory cache
+     * By default, up to 64 MiB of media are kept in memory
+     */
+    @Default
+    private final long mediaCacheSize = 64L * 1024 * 1024;
+
+    /**
+     * The directory where decoded media evicted from memory are saved, so that they don't need to be downloaded again
+     * By default, this field is null, which means that media evicted from memory are discarded
+     */
+    @Default
+    private final Path mediaCacheDirectory = null;
+
+    /**
+     * The maximum number of bytes of decoded media saved in {@link WhatsappConfiguration#mediaCacheDirectory()}, the least recently used media are deleted first
+     * By default, up to 1 GiB of media are saved on disk
+     */
+    @Default
+    private final long mediaCacheDiskSize = 1024L * 1024 * 1024;
+
+    /**
+     * The amount of time an uploaded media is reused for when the same content is sent again, instead of being encrypted and uploaded again
+     * Uploads are recognized by the sha256 of their content and type, so this is useful when, for example, the same media is sent to a large number of chats
+     * A zero or negative duration disables this behaviour, this is the default
+     */
+    @Default
+    private final @NonNull Duration mediaUploadTtl = Duration.ZERO;
+
     /**
      * Constructs a new instance of WhatsappConfiguration with default options
      *
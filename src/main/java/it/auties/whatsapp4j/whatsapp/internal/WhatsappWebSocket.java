@@ -39,6 +39,7 @@ import lombok.experimental.Accessors;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -81,7 +82,7 @@ public class WhatsappWebSocket {
                 manager,
                 options,
                 new WhatsappQRCode(),
-                new BinaryDecoder()
+                new BinaryDecoder(options.maxNodeDepth(), options.maxNodeCount())
         );
     }
 
@@ -219,17 +220,14 @@ public class WhatsappWebSocket {
     public void onBinary(byte @NonNull [] msg) {
         Validate.isTrue(msg[0] != '!', "Server pong from whatsapp, why did this get through?");
 
-        var binaryMessage = BinaryArray.forArray(msg);
-        var tagAndMessagePair = binaryMessage.indexOf(',').map(binaryMessage::split).orElseThrow();
-
-        var messageTag = tagAndMessagePair.key().toString();
-        var messageContent = tagAndMessagePair.value();
-
-        var message = messageContent.slice(32);
-        var hmacValidation = CypherUtils.hmacSha256(message, Objects.requireNonNull(whatsappKeys.macKey()));
-        Validate.isTrue(hmacValidation.equals(messageContent.cut(32)), "Cannot read message: Hmac validation failed!", SecurityException.class);
+        var separator = BinaryArray.forArray(msg).indexOf(',').orElseThrow(() -> new IllegalArgumentException("Cannot read message: missing tag"));
+        var messageTag = new String(msg, 0, separator, StandardCharsets.UTF_8);
+        var decryptedMessage = whatsappKeys.sessionCypher().open(ByteBuffer.wrap(msg, separator + 1, msg.length - separator - 1));
+        if (whatsappManager.findPendingRequest(messageTag).isEmpty()) {
+            whatsappManager.digestBinaryMessage(this, decoder, decryptedMessage);
+            return;
+        }
 
-        var decryptedMessage = CypherUtils.aesDecrypt(message, Objects.requireNonNull(whatsappKeys.encKey()));
         var response = new BinaryResponse(messageTag, decoder.decodeDecryptedMessage(decryptedMessage));
         if (whatsappManager.resolvePendingRequest(response.tag(), response)) {
             return;
@@ -245,8 +243,11 @@ public class WhatsappWebSocket {
 
     public void connect() {
         Validate.isTrue(!loggedIn, "WhatsappAPI: Cannot establish a connection with whatsapp as one already exists", IllegalStateException.class);
+        whatsappManager.configure(options);
         openConnection();
         pingService.scheduleAtFixedRate(this::sendPing, 0, 1, TimeUnit.MINUTES);
+        pingService.scheduleAtFixedRate(whatsappManager::expirePendingRequests, 1, 1, TimeUnit.SECONDS);
+        pingService.scheduleAtFixedRate(whatsappManager::trimMessages, 1, 1, TimeUnit.MINUTES);
     }
 
     @SneakyThrows
@@ -395,7 +396,7 @@ public class WhatsappWebSocket {
 
     private void configureSelfContact(@NonNull UserInformationResponse info) {
         var jid = parseJid(info.wid());
-        whatsappManager.contacts().add(Contact.fromJid(jid));
+        whatsappManager.addContact(Contact.fromJid(jid));
         whatsappManager.phoneNumberJid(jid);
     }
 
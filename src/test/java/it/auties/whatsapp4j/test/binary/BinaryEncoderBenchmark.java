@@ -0,0 +1,66 @@
+package it.auties.whatsapp4j.test.binary;
+
+import it.auties.whatsapp4j.binary.BinaryEncoder;
+import it.auties.whatsapp4j.protobuf.model.Node;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * A JMH benchmark that measures how long {@link BinaryEncoder} takes to encode the action nodes sent by {@link it.auties.whatsapp4j.whatsapp.WhatsappAPI}.
+ * The relay node is mostly an opaque payload, while the set node is made of tokens and jids, so it measures the lookup of binary tokens.
+ * It's not run by the test suite: run {@link BinaryEncoderBenchmark#main(String[])} from the test classpath instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class BinaryEncoderBenchmark {
+    @Param({"relay", "set"})
+    public String type;
+
+    private BinaryEncoder encoder;
+    private ByteBuffer output;
+    private Node node;
+
+    @Setup
+    public void setup() {
+        this.encoder = new BinaryEncoder();
+        this.output = ByteBuffer.allocate(64 * 1024);
+        this.node = type.equals("relay") ? createRelayNode() : createSetNode();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return encoder.encodeMessage(node);
+    }
+
+    @Benchmark
+    public int encodeIntoBuffer() {
+        return encoder.encodeMessage(node, output.clear());
+    }
+
+    private Node createRelayNode() {
+        return new Node("action", Map.of("type", "relay", "epoch", "1234"), List.of(new Node("message", Map.of(), new byte[160])));
+    }
+
+    private Node createSetNode() {
+        var children = IntStream.range(0, 10)
+                .mapToObj(index -> new Node("read", Map.of("jid", "39333123456%s@s.whatsapp.net".formatted(index), "index", "3EB0C767D26A1B3F%s".formatted(index), "owner", "false", "count", "1"), null))
+                .toList();
+        return new Node("action", Map.of("type", "set", "epoch", "1235"), children);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BinaryEncoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package it.auties.whatsapp4j.test.binary;
+
+import it.auties.whatsapp4j.binary.BinaryArray;
+import it.auties.whatsapp4j.binary.BinaryDecoder;
+import it.auties.whatsapp4j.binary.BinaryEncoder;
+import it.auties.whatsapp4j.binary.BinaryFlag;
+import it.auties.whatsapp4j.binary.BinaryMetric;
+import it.auties.whatsapp4j.manager.WhatsappKeysManager;
+import it.auties.whatsapp4j.protobuf.model.Node;
+import it.auties.whatsapp4j.request.model.BinaryRequest;
+import it.auties.whatsapp4j.response.impl.json.SimpleStatusResponse;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A simple class to check that binary requests can be encoded and encrypted by multiple concurrent threads sharing the same keys, and that nodes can be encoded straight into a ByteBuffer
+ */
+@Log
+public class BinaryEncoderTest {
+    private static final int THREADS = 16;
+    private static final int MESSAGES_PER_THREAD = 2_000;
+
+    private final WhatsappConfiguration configuration = WhatsappConfiguration.defaultOptions();
+    private final WhatsappKeysManager keys = WhatsappKeysManager.fromJson("{\"clientId\":\"test\"}")
+            .encKey(BinaryArray.random(32))
+            .macKey(BinaryArray.random(32));
+
+    @Test
+    public void testConcurrentEncoding() throws Exception {
+        log.info("Encoding %s requests from %s threads...".formatted(THREADS * MESSAGES_PER_THREAD, THREADS));
+        var executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            var start = new CountDownLatch(1);
+            var tasks = new ArrayList<Callable<Integer>>();
+            for (var thread = 0; thread < THREADS; thread++) {
+                var threadId = thread;
+                tasks.add(() -> {
+                    start.await();
+                    var decoder = new BinaryDecoder();
+                    for (var message = 0; message < MESSAGES_PER_THREAD; message++) {
+                        var tag = "%s.%s".formatted(threadId, message);
+                        var node = createNode(threadId, message);
+                        var frame = new BinaryRequest<SimpleStatusResponse>(configuration, keys, tag, node, BinaryFlag.IGNORE, BinaryMetric.MESSAGE) {}.encode();
+                        assertEquals(node, decode(frame, tag, decoder), "Frame was interleaved with another thread");
+                    }
+
+                    return MESSAGES_PER_THREAD;
+                });
+            }
+
+            var results = tasks.stream().map(executor::submit).toList();
+            start.countDown();
+            for (var result : results) {
+                assertEquals(MESSAGES_PER_THREAD, (int) result.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Encoded all requests!");
+    }
+
+    @Test
+    public void testByteBufferOutput() {
+        log.info("Encoding nodes into heap, sliced and direct buffers...");
+        var encoder = new BinaryEncoder();
+        var node = createNode(1, 7);
+        var expected = encoder.encodeMessage(node);
+
+        var backing = ByteBuffer.allocate(expected.length + 32);
+        var sliced = backing.position(16).slice();
+        sliced.put((byte) 0xff);
+        assertEquals(expected.length, encoder.encodeMessage(node, sliced));
+        assertEquals(1 + expected.length, sliced.position());
+        assertArrayEquals(expected, Arrays.copyOfRange(backing.array(), 17, 17 + expected.length));
+        assertEquals((byte) 0xff, backing.get(16));
+
+        var direct = ByteBuffer.allocateDirect(expected.length);
+        assertEquals(expected.length, encoder.encodeMessage(node, direct));
+        var written = new byte[expected.length];
+        direct.flip().get(written);
+        assertArrayEquals(expected, written);
+
+        var small = ByteBuffer.allocate(expected.length - 1);
+        assertThrows(BufferOverflowException.class, () -> encoder.encodeMessage(node, small));
+        assertEquals(0, small.position());
+        assertArrayEquals(expected, encoder.encodeMessage(node), "The encoder wasn't reset after an overflow");
+    }
+
+    private Node decode(ByteBuffer frame, String tag, BinaryDecoder decoder) {
+        var prefix = "%s,".formatted(tag).getBytes(StandardCharsets.UTF_8);
+        var actualPrefix = new byte[prefix.length];
+        frame.get(actualPrefix);
+        assertArrayEquals(prefix, actualPrefix, "Frame has the tag of another request");
+        assertEquals((byte) BinaryMetric.MESSAGE.data(), frame.get());
+        assertEquals((byte) BinaryFlag.IGNORE.data(), frame.get());
+        return decoder.decodeDecryptedMessage(keys.sessionCypher().open(frame.slice()));
+    }
+
+    private Node createNode(int thread, int message) {
+        var children = new ArrayList<Node>();
+        for (var index = 0; index < 1 + (message % 8); index++) {
+            children.add(new Node("user", Map.of("jid", "%s%s@c.us".formatted(thread, index)), "thread %s message %s child %s".formatted(thread, message, index)));
+        }
+
+        return new Node("action", Map.of("type", "relay", "epoch", String.valueOf(message)), List.copyOf(children));
+    }
+}
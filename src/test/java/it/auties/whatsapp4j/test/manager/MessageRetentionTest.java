@@ -0,0 +1,51 @@
+package it.auties.whatsapp4j.test.manager;
+
+import it.auties.whatsapp4j.manager.MessageRetention;
+import it.auties.whatsapp4j.protobuf.chat.Chat;
+import it.auties.whatsapp4j.protobuf.info.MessageInfo;
+import it.auties.whatsapp4j.protobuf.message.model.MessageContainer;
+import it.auties.whatsapp4j.protobuf.message.model.MessageKey;
+import it.auties.whatsapp4j.protobuf.message.standard.TextMessage;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A simple class to check that {@link MessageRetention} keeps evicting messages even if the handler of evicted messages throws an exception
+ */
+@Log
+public class MessageRetentionTest {
+    @Test
+    public void testThrowingHandler() {
+        log.info("Trimming a chat whose evicted messages are passed to a throwing handler...");
+        var calls = new AtomicInteger();
+        var configuration = WhatsappConfiguration.builder()
+                .maxMessagesPerChat(2)
+                .evictedMessageHandler((chat, message) -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("Cannot spill message %s".formatted(message.key().id()));
+                })
+                .build();
+        var retention = new MessageRetention(configuration);
+        var chat = createChat();
+        for (var index = 0; index < 5; index++) {
+            chat.messages().add(new MessageInfo(new MessageKey(chat), new MessageContainer(new TextMessage("message %s".formatted(index)))));
+        }
+
+        retention.trim(List.of(chat));
+        assertEquals(2, chat.messages().size());
+        assertEquals(3, calls.get());
+    }
+
+    private Chat createChat() {
+        return Chat.builder()
+                .jid("retention@s.whatsapp.net")
+                .displayName("retention")
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package it.auties.whatsapp4j.test.manager;
+
+import it.auties.whatsapp4j.binary.BinaryArray;
+import it.auties.whatsapp4j.binary.BinaryFlag;
+import it.auties.whatsapp4j.binary.BinaryMetric;
+import it.auties.whatsapp4j.manager.RequestTimeoutException;
+import it.auties.whatsapp4j.manager.SessionClosedException;
+import it.auties.whatsapp4j.manager.WhatsappDataManager;
+import it.auties.whatsapp4j.manager.WhatsappKeysManager;
+import it.auties.whatsapp4j.protobuf.model.Node;
+import it.auties.whatsapp4j.request.model.BinaryRequest;
+import it.auties.whatsapp4j.response.impl.json.SimpleStatusResponse;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A simple class to check that pending requests are completed exceptionally when they expire or when the session is cleared, instead of staying pending forever
+ */
+@Log
+public class PendingRequestTest {
+    private final WhatsappDataManager manager = WhatsappDataManager.singletonInstance();
+    private final WhatsappConfiguration configuration = WhatsappConfiguration.defaultOptions();
+    private final WhatsappKeysManager keys = WhatsappKeysManager.fromJson("{\"clientId\":\"test\"}")
+            .encKey(BinaryArray.random(32))
+            .macKey(BinaryArray.random(32));
+    private final Session session = createSession();
+
+    @Test
+    public void testTimeout() throws Exception {
+        log.info("Sending a request that expires after fifty milliseconds...");
+        var expired = manager.expiredRequests();
+        var request = createRequest("timeout").timeout(Duration.ofMillis(50));
+        var future = request.send(session);
+        assertTrue(manager.findPendingRequest(request.tag()).isPresent());
+        Thread.sleep(100);
+        assertTrue(manager.expirePendingRequests() >= 1);
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RequestTimeoutException.class, exception.getCause());
+        assertTrue(manager.findPendingRequest(request.tag()).isEmpty());
+        assertTrue(manager.expiredRequests() > expired);
+    }
+
+    @Test
+    public void testLongTimeout() {
+        log.info("Sending a request whose timeout cannot be measured in nanoseconds...");
+        var request = createRequest("forever").timeout(Duration.ofDays(365L * 1_000));
+        var future = request.send(session);
+        manager.expirePendingRequests();
+        assertFalse(future.isDone());
+        assertTrue(manager.findPendingRequest(request.tag()).isPresent());
+        manager.clear();
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        log.info("Clearing the session while a request is pending...");
+        var request = createRequest("clear");
+        var future = request.send(session);
+        manager.clear();
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SessionClosedException.class, exception.getCause());
+        assertTrue(manager.findPendingRequest(request.tag()).isEmpty());
+    }
+
+    private BinaryRequest<SimpleStatusResponse> createRequest(String tag) {
+        var node = new Node("action", Map.of("type", "set"), null);
+        return new BinaryRequest<SimpleStatusResponse>(configuration, keys, "%s.%s".formatted(tag, System.nanoTime()), node, BinaryFlag.IGNORE, BinaryMetric.QUERY_STATUS) {};
+    }
+
+    private Session createSession() {
+        var remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RemoteEndpoint.Async.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("sendBinary") || args == null || args.length != 2) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            ((SendHandler) args[1]).onResult(new SendResult());
+            return null;
+        });
+
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getAsyncRemote" -> remote;
+            case "isOpen" -> true;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "PendingRequestTest$Session";
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,157 @@
+package it.auties.whatsapp4j.test.media;
+
+import it.auties.whatsapp4j.media.MediaCache;
+import it.auties.whatsapp4j.utils.internal.CypherUtils;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A simple class to check the eviction, spilling and load merging of {@link MediaCache}
+ */
+@Log
+public class MediaCacheTest {
+    private final Random random = new Random(42);
+
+    @Test
+    public void testMemoryEviction() {
+        log.info("Caching three media in a cache that can hold two...");
+        var cache = new MediaCache(2_048, null, 0);
+        var first = randomMedia(1_024);
+        var second = randomMedia(1_024);
+        var third = randomMedia(1_024);
+        assertTrue(cache.put(CypherUtils.sha256(first), first));
+        assertTrue(cache.put(CypherUtils.sha256(second), second));
+        assertTrue(cache.get(CypherUtils.sha256(first)).isPresent());
+        assertTrue(cache.put(CypherUtils.sha256(third), third));
+        assertTrue(cache.get(CypherUtils.sha256(first)).isPresent());
+        assertTrue(cache.get(CypherUtils.sha256(second)).isEmpty());
+        assertTrue(cache.get(CypherUtils.sha256(third)).isPresent());
+        assertEquals(2_048, cache.memoryUsage());
+    }
+
+    @Test
+    public void testHashValidation() {
+        log.info("Caching and querying media under wrong hashes...");
+        var cache = new MediaCache(4_096, null, 0);
+        var media = randomMedia(512);
+        assertFalse(cache.put(CypherUtils.sha256(randomMedia(512)), media));
+        assertTrue(cache.put(CypherUtils.sha256(media), media));
+        assertTrue(cache.get(CypherUtils.sha256(new byte[0])).isEmpty());
+        var cached = cache.get(CypherUtils.sha256(media));
+        assertTrue(cached.isPresent());
+        cached.get()[0]++;
+        assertArrayEquals(media, cache.get(CypherUtils.sha256(media)).orElseThrow());
+    }
+
+    @Test
+    public void testDiskTier() throws Exception {
+        log.info("Spilling media to disk and reloading them...");
+        var directory = Files.createTempDirectory("media-cache");
+        try {
+            var cache = new MediaCache(1_024, directory, 2_048);
+            var first = randomMedia(1_024);
+            var second = randomMedia(1_024);
+            var third = randomMedia(1_024);
+            cache.put(CypherUtils.sha256(first), first);
+            cache.put(CypherUtils.sha256(second), second);
+            cache.put(CypherUtils.sha256(third), third);
+            assertEquals(1_024, cache.memoryUsage());
+            assertEquals(2_048, cache.diskUsage());
+
+            var reloaded = new MediaCache(1_024, directory, 2_048);
+            assertEquals(2_048, reloaded.diskUsage());
+            assertArrayEquals(first, reloaded.get(CypherUtils.sha256(first)).orElseThrow());
+            assertArrayEquals(second, reloaded.get(CypherUtils.sha256(second)).orElseThrow());
+            assertTrue(reloaded.get(CypherUtils.sha256(third)).isEmpty());
+
+            try (var files = Files.list(directory)) {
+                for (var file : files.toList()) {
+                    Files.write(file, randomMedia(1_024));
+                }
+            }
+
+            var tampered = new MediaCache(0, directory, 2_048);
+            assertTrue(tampered.get(CypherUtils.sha256(first)).isEmpty());
+            assertTrue(tampered.get(CypherUtils.sha256(second)).isEmpty());
+            assertEquals(0, tampered.diskUsage());
+        } finally {
+            try (var files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testDiskRecovery() throws Exception {
+        log.info("Reloading a cache directory with a smaller budget and a leftover temporary file...");
+        var directory = Files.createTempDirectory("media-cache");
+        try {
+            var cache = new MediaCache(0, directory, 2_048);
+            var older = randomMedia(1_024);
+            var newer = randomMedia(1_024);
+            cache.put(CypherUtils.sha256(older), older);
+            cache.put(CypherUtils.sha256(newer), newer);
+            assertEquals(2_048, cache.diskUsage());
+            try (var files = Files.list(directory)) {
+                for (var file : files.toList()) {
+                    var time = Arrays.equals(older, Files.readAllBytes(file)) ? 1_000 : 2_000;
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(time));
+                }
+            }
+
+            Files.write(directory.resolve("interrupted.part"), randomMedia(512));
+            var reloaded = new MediaCache(0, directory, 1_024);
+            assertEquals(1_024, reloaded.diskUsage());
+            assertTrue(reloaded.get(CypherUtils.sha256(older)).isEmpty());
+            assertArrayEquals(newer, reloaded.get(CypherUtils.sha256(newer)).orElseThrow());
+            try (var files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            try (var files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentLoadsAreMerged() {
+        log.info("Loading the same media ten times at once...");
+        var cache = new MediaCache(4_096, null, 0);
+        var media = randomMedia(256);
+        var loads = new AtomicInteger();
+        var pending = new CompletableFuture<byte[]>();
+        var futures = new CompletableFuture[10];
+        for (var index = 0; index < futures.length; index++) {
+            futures[index] = cache.load(CypherUtils.sha256(media), () -> {
+                loads.incrementAndGet();
+                return pending;
+            });
+        }
+
+        pending.complete(media);
+        CompletableFuture.allOf(futures).join();
+        assertEquals(1, loads.get());
+        for (var future : futures) {
+            assertArrayEquals(media, (byte[]) future.join());
+        }
+
+        assertTrue(cache.get(CypherUtils.sha256(media)).isPresent());
+    }
+
+    private byte[] randomMedia(int size) {
+        var media = new byte[size];
+        random.nextBytes(media);
+        return media;
+    }
+}
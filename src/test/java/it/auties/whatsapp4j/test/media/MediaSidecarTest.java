@@ -0,0 +1,56 @@
+package it.auties.whatsapp4j.test.media;
+
+import it.auties.whatsapp4j.utils.internal.MediaSidecar;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * A simple class to check that sidecars computed in parallel are identical to the ones computed one chunk at a time
+ */
+@Log
+public class MediaSidecarTest {
+    private static final int[] SIZES = {0, 1, 79, 80, 81, 327_679, 327_680, 327_681, 1024 * 1024 + 17, 16 * 1024 * 1024};
+
+    @Test
+    public void testParallelSidecar() throws Exception {
+        var random = new Random(42);
+        var macKey = new byte[32];
+        random.nextBytes(macKey);
+        var key = new SecretKeySpec(macKey, "HmacSHA256");
+        for (var size : SIZES) {
+            log.info("Computing sidecar for %s bytes...".formatted(size));
+            var file = new byte[size];
+            random.nextBytes(file);
+            var expected = sequentialSidecar(file, key);
+            assertArrayEquals(expected, MediaSidecar.compute(file, key), "Sidecar mismatch for %s bytes in memory".formatted(size));
+
+            var path = Files.createTempFile("sidecar", ".bin");
+            try {
+                Files.write(path, file);
+                assertArrayEquals(expected, MediaSidecar.compute(path, key), "Sidecar mismatch for %s bytes on disk".formatted(size));
+            } finally {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private byte[] sequentialSidecar(byte[] file, SecretKeySpec key) throws Exception {
+        var output = new ByteArrayOutputStream();
+        for (var offset = 0; offset < file.length; offset += 80) {
+            var mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            mac.update(file, offset, Math.min(80, file.length - offset));
+            output.write(mac.doFinal(), 0, 10);
+        }
+
+        return output.toByteArray();
+    }
+}
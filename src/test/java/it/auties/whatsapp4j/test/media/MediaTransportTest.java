@@ -0,0 +1,171 @@
+package it.auties.whatsapp4j.test.media;
+
+import it.auties.whatsapp4j.media.MediaTransport;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A simple class to check the retries, timeouts and per host limits of {@link MediaTransport} against a local HTTP stub
+ */
+@Log
+public class MediaTransportTest {
+    private ExecutorService executor;
+    private ServerSocket server;
+    private volatile IntFunction<StubResponse> handler;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = new ServerSocket(0, 64, InetAddress.getLoopbackAddress());
+        executor.execute(() -> {
+            while (!server.isClosed()) {
+                try {
+                    var socket = server.accept();
+                    executor.execute(() -> handle(socket));
+                } catch (IOException ignored) {
+
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    public void stopStub() throws IOException {
+        server.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRetryWithBackoff() {
+        log.info("Downloading from a stub that fails twice...");
+        handler = attempt -> attempt < 3 ? new StubResponse(503, "", 0, 0) : new StubResponse(200, "media", 0, 0);
+        var transport = new MediaTransport(Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofSeconds(30), 4, 3, Duration.ofMillis(10));
+        assertEquals("media", new String(transport.download(stubUri()).join(), StandardCharsets.UTF_8));
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() {
+        log.info("Downloading a missing media from the stub...");
+        handler = attempt -> new StubResponse(404, "", 0, 0);
+        var transport = new MediaTransport(Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofSeconds(30), 4, 3, Duration.ofMillis(10));
+        assertThrows(IOException.class, () -> transport.openDownload(stubUri()).close());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testRequestTimeout() {
+        log.info("Downloading from a stub that never answers in time...");
+        handler = attempt -> new StubResponse(200, "late", 2_000, 0);
+        var transport = new MediaTransport(Duration.ofSeconds(5), Duration.ofMillis(200), Duration.ofSeconds(30), Duration.ofSeconds(30), 4, 1, Duration.ofMillis(10));
+        var exception = assertThrows(CompletionException.class, () -> transport.download(stubUri()).join());
+        assertInstanceOf(HttpTimeoutException.class, exception.getCause());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testStalledBody() {
+        log.info("Downloading from a stub that stalls after sending half of the body...");
+        handler = attempt -> new StubResponse(200, "stalled media", 0, 5_000);
+        var transport = new MediaTransport(Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofMillis(300), Duration.ofSeconds(30), 4, 1, Duration.ofMillis(10));
+        var start = System.nanoTime();
+        var exception = assertThrows(CompletionException.class, () -> transport.download(stubUri()).join());
+        assertInstanceOf(HttpTimeoutException.class, exception.getCause());
+        assertEquals(2, requests.get());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 3_000, "Stalled download wasn't aborted in time");
+    }
+
+    @Test
+    public void testStalledStream() throws IOException {
+        log.info("Streaming from a stub that stalls after sending half of the body...");
+        handler = attempt -> new StubResponse(200, "stalled media", 0, 5_000);
+        var transport = new MediaTransport(Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofMillis(300), 1, 0, Duration.ofMillis(10));
+        var start = System.nanoTime();
+        try (var input = transport.openDownload(stubUri())) {
+            assertThrows(HttpTimeoutException.class, input::readAllBytes);
+        }
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 3_000, "Stalled stream wasn't aborted in time");
+        assertFalse(Thread.currentThread().isInterrupted());
+        handler = attempt -> new StubResponse(200, "media", 0, 0);
+        assertEquals("media", new String(transport.download(stubUri()).join(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testConnectionsPerHost() {
+        log.info("Downloading eight media from the stub with at most two transfers at the same time...");
+        handler = attempt -> new StubResponse(200, "media", 200, 0);
+        var transport = new MediaTransport(Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofSeconds(30), 2, 0, Duration.ofMillis(10));
+        var downloads = new ArrayList<CompletableFuture<byte[]>>();
+        for (var download = 0; download < 8; download++) {
+            downloads.add(transport.download(stubUri()));
+        }
+
+        CompletableFuture.allOf(downloads.toArray(CompletableFuture[]::new)).join();
+        assertEquals(8, requests.get());
+        assertTrue(maxConcurrentRequests.get() <= 2, "Too many concurrent transfers: %s".formatted(maxConcurrentRequests.get()));
+    }
+
+    private URI stubUri() {
+        return URI.create("http://127.0.0.1:%s/media".formatted(server.getLocalPort()));
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                // Skip the request line and headers, GET requests have no body
+            }
+
+            var attempt = requests.incrementAndGet();
+            var concurrent = concurrentRequests.incrementAndGet();
+            maxConcurrentRequests.accumulateAndGet(concurrent, Math::max);
+            try {
+                var response = handler.apply(attempt);
+                Thread.sleep(response.delay());
+                var body = response.body().getBytes(StandardCharsets.UTF_8);
+                var head = "HTTP/1.1 %s Stub\r\nContent-Length: %s\r\nConnection: close\r\n\r\n".formatted(response.status(), body.length);
+                var output = socket.getOutputStream();
+                output.write(head.getBytes(StandardCharsets.ISO_8859_1));
+                output.write(body, 0, body.length / 2);
+                output.flush();
+                Thread.sleep(response.stall());
+                output.write(body, body.length / 2, body.length - body.length / 2);
+                output.flush();
+            } finally {
+                concurrentRequests.decrementAndGet();
+            }
+        } catch (IOException | InterruptedException ignored) {
+
+        }
+    }
+
+    private record StubResponse(int status, String body, long delay, long stall) {
+    }
+}
@@ -0,0 +1,92 @@
+package it.auties.whatsapp4j.test.media;
+
+import it.auties.whatsapp4j.binary.BinaryArray;
+import it.auties.whatsapp4j.media.MediaUpload;
+import it.auties.whatsapp4j.media.MediaUploadRegistry;
+import it.auties.whatsapp4j.protobuf.message.model.MediaMessageType;
+import it.auties.whatsapp4j.utils.internal.CypherUtils;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A simple class to check that {@link MediaUploadRegistry} reuses uploads only while they are valid
+ */
+@Log
+public class MediaUploadRegistryTest {
+    private final byte[] media = BinaryArray.random(1_024).data();
+
+    @Test
+    public void testDisabledByDefault() {
+        log.info("Registering an upload in a disabled registry...");
+        var registry = new MediaUploadRegistry(Duration.ZERO, Clock.systemUTC());
+        registry.register(upload(MediaMessageType.IMAGE));
+        assertFalse(registry.enabled());
+        assertTrue(registry.find(CypherUtils.sha256(media), MediaMessageType.IMAGE).isEmpty());
+    }
+
+    @Test
+    public void testReuseUntilExpiration() {
+        log.info("Reusing an upload until it expires...");
+        var clock = new MutableClock();
+        var registry = new MediaUploadRegistry(Duration.ofHours(1), clock);
+        registry.register(upload(MediaMessageType.IMAGE));
+
+        var reused = registry.find(CypherUtils.sha256(media), MediaMessageType.IMAGE);
+        assertTrue(reused.isPresent());
+        assertEquals("https://mmg.whatsapp.net/image", reused.get().url());
+        assertNull(reused.get().file());
+        assertTrue(registry.find(CypherUtils.sha256(media), MediaMessageType.DOCUMENT).isEmpty());
+
+        clock.advance(Duration.ofMinutes(59));
+        assertTrue(registry.find(CypherUtils.sha256(media), MediaMessageType.IMAGE).isPresent());
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(registry.find(CypherUtils.sha256(media), MediaMessageType.IMAGE).isEmpty());
+    }
+
+    @Test
+    public void testInvalidation() {
+        log.info("Invalidating every upload of a media...");
+        var registry = new MediaUploadRegistry(Duration.ofHours(1), Clock.systemUTC());
+        registry.register(upload(MediaMessageType.IMAGE));
+        registry.register(upload(MediaMessageType.STICKER));
+        registry.invalidate(CypherUtils.sha256(media));
+        assertTrue(registry.find(CypherUtils.sha256(media), MediaMessageType.IMAGE).isEmpty());
+        assertTrue(registry.find(CypherUtils.sha256(media), MediaMessageType.STICKER).isEmpty());
+    }
+
+    private MediaUpload upload(MediaMessageType type) {
+        return new MediaUpload("https://mmg.whatsapp.net/%s".formatted(type.name().toLowerCase()), "/direct", BinaryArray.random(32), new byte[16],
+                CypherUtils.sha256(media), CypherUtils.sha256(new byte[16]), new byte[0], type, media.length);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.EPOCH;
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
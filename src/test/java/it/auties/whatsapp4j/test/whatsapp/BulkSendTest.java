@@ -0,0 +1,212 @@
+package it.auties.whatsapp4j.test.whatsapp;
+
+import it.auties.whatsapp4j.binary.BinaryArray;
+import it.auties.whatsapp4j.binary.BinaryDecoder;
+import it.auties.whatsapp4j.manager.WhatsappDataManager;
+import it.auties.whatsapp4j.manager.WhatsappKeysManager;
+import it.auties.whatsapp4j.protobuf.chat.Chat;
+import it.auties.whatsapp4j.protobuf.message.standard.TextMessage;
+import it.auties.whatsapp4j.response.impl.json.MessageResponse;
+import it.auties.whatsapp4j.response.model.json.JsonResponse;
+import it.auties.whatsapp4j.whatsapp.BulkSend;
+import it.auties.whatsapp4j.whatsapp.BulkSendOptions;
+import it.auties.whatsapp4j.whatsapp.WhatsappAPI;
+import it.auties.whatsapp4j.whatsapp.WhatsappConfiguration;
+import it.auties.whatsapp4j.whatsapp.internal.WhatsappWebSocket;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A simple class to check that the messages of a bulk send and the ones sent at the same time from other threads reach WhatsappWeb's WebSocket in the same order as their epochs, and that a slow write doesn't block the other senders
+ */
+@Log
+public class BulkSendTest {
+    private static final int BULK_MESSAGES = 1_000;
+    private static final int THREADS = 4;
+    private static final int MESSAGES_PER_THREAD = 100;
+
+    private final WhatsappKeysManager keys = WhatsappKeysManager.fromJson("{\"clientId\":\"test\"}")
+            .encKey(BinaryArray.random(32))
+            .macKey(BinaryArray.random(32));
+    private final List<Long> epochs = Collections.synchronizedList(new ArrayList<>());
+    private final BinaryDecoder decoder = new BinaryDecoder();
+
+    @Test
+    public void testEpochOrder() throws Exception {
+        var api = createApi(WhatsappConfiguration.defaultOptions(), createSession());
+        log.info("Sending %s messages in bulk while %s threads send %s messages each...".formatted(BULK_MESSAGES, THREADS, MESSAGES_PER_THREAD));
+        var options = BulkSendOptions.builder()
+                .messagesPerSecond(0)
+                .workers(4)
+                .maxInFlight(64)
+                .build();
+        var bulk = api.sendMessages(IntStream.range(0, BULK_MESSAGES).mapToObj(index -> Map.entry(createChat("bulk", index), new TextMessage("bulk %s".formatted(index)))), options);
+        var executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            var singles = IntStream.range(0, THREADS)
+                    .mapToObj(thread -> CompletableFuture.supplyAsync(() -> sendSingleMessages(api, thread), executor))
+                    .toList();
+            var outcomes = bulk.outcomes().toList();
+            var stats = bulk.completion().get(1, TimeUnit.MINUTES);
+            assertEquals(BULK_MESSAGES, stats.submitted());
+            assertEquals(BULK_MESSAGES, stats.succeeded());
+            assertTrue(outcomes.stream().allMatch(BulkSend.Outcome::success), "A message of the bulk send failed");
+            for (var single : singles) {
+                for (var response : single.get(1, TimeUnit.MINUTES)) {
+                    assertEquals(200, response.get(1, TimeUnit.MINUTES).status());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(BULK_MESSAGES + THREADS * MESSAGES_PER_THREAD, epochs.size());
+        for (var index = 1; index < epochs.size(); index++) {
+            assertTrue(epochs.get(index - 1) < epochs.get(index), "Epoch %s was written after epoch %s".formatted(epochs.get(index), epochs.get(index - 1)));
+        }
+
+        log.info("Every epoch was written in order!");
+    }
+
+    @Test
+    public void testSlowSynchronousWrite() throws Exception {
+        log.info("Sending a message while a synchronous write of another message is stuck...");
+        var writing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var configuration = WhatsappConfiguration.builder()
+                .async(false)
+                .build();
+        var api = createApi(configuration, createBlockingSession(writing, release));
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var first = executor.submit(() -> api.sendMessage(createChat("slow", 0), new TextMessage("slow message")));
+            assertTrue(writing.await(1, TimeUnit.MINUTES));
+            var start = System.nanoTime();
+            var second = api.sendMessage(createChat("slow", 1), new TextMessage("queued message"));
+            var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(elapsed < 1_000, "A slow write blocked another sender for %sms".formatted(elapsed));
+            assertFalse(second.isDone());
+            release.countDown();
+            assertEquals(200, first.get(1, TimeUnit.MINUTES).get(1, TimeUnit.MINUTES).status());
+            assertEquals(200, second.get(1, TimeUnit.MINUTES).status());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, epochs.size());
+        assertTrue(epochs.get(0) < epochs.get(1), "Epoch %s was written after epoch %s".formatted(epochs.get(1), epochs.get(0)));
+    }
+
+    private WhatsappAPI createApi(WhatsappConfiguration configuration, Session session) throws ReflectiveOperationException {
+        var api = new WhatsappAPI(configuration, keys);
+        var socket = WhatsappAPI.class.getDeclaredField("socket");
+        socket.setAccessible(true);
+        ((WhatsappWebSocket) socket.get(api)).session(session);
+        return api;
+    }
+
+    private List<CompletableFuture<MessageResponse>> sendSingleMessages(WhatsappAPI api, int thread) {
+        return IntStream.range(0, MESSAGES_PER_THREAD)
+                .mapToObj(index -> api.sendMessage(createChat("thread%s".formatted(thread), index), new TextMessage("thread %s message %s".formatted(thread, index))))
+                .toList();
+    }
+
+    private Chat createChat(String prefix, int index) {
+        return Chat.builder()
+                .jid("%s%s@s.whatsapp.net".formatted(prefix, index))
+                .displayName("%s %s".formatted(prefix, index))
+                .build();
+    }
+
+    private Session createSession() {
+        var remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RemoteEndpoint.Async.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("sendBinary") || args == null || args.length != 2) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            var tag = record((ByteBuffer) args[0]);
+            ((SendHandler) args[1]).onResult(new SendResult());
+            respond(tag);
+            return null;
+        });
+
+        return createSession(RemoteEndpoint.Async.class, remote);
+    }
+
+    private Session createBlockingSession(CountDownLatch writing, CountDownLatch release) {
+        var remote = (RemoteEndpoint.Basic) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RemoteEndpoint.Basic.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("sendBinary") || args == null || args.length != 1) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            var tag = record((ByteBuffer) args[0]);
+            writing.countDown();
+            assertTrue(release.await(1, TimeUnit.MINUTES));
+            respond(tag);
+            return null;
+        });
+
+        return createSession(RemoteEndpoint.Basic.class, remote);
+    }
+
+    private Session createSession(Class<?> remoteType, Object remote) {
+        var remoteMethod = remoteType == RemoteEndpoint.Async.class ? "getAsyncRemote" : "getBasicRemote";
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getAsyncRemote", "getBasicRemote" -> {
+                if (!method.getName().equals(remoteMethod)) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+
+                yield remote;
+            }
+            case "isOpen" -> true;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "BulkSendTest$Session";
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private String record(ByteBuffer frame) {
+        var tag = readTag(frame);
+        frame.position(frame.position() + 2);
+        synchronized (decoder) {
+            var node = decoder.decodeDecryptedMessage(keys.sessionCypher().open(frame.slice()));
+            epochs.add(Long.parseLong(String.valueOf(node.attrs().get("epoch"))));
+        }
+
+        return tag;
+    }
+
+    private void respond(String tag) {
+        CompletableFuture.runAsync(() -> WhatsappDataManager.singletonInstance().resolvePendingRequest(tag, JsonResponse.fromJson("{\"status\":200,\"t\":1}")));
+    }
+
+    private String readTag(ByteBuffer frame) {
+        var start = frame.position();
+        while (frame.get() != ',') ;
+        var tag = new byte[frame.position() - start - 1];
+        frame.get(start, tag);
+        return new String(tag, StandardCharsets.UTF_8);
+    }
+}
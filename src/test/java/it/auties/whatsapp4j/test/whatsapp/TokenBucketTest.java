@@ -0,0 +1,50 @@
+package it.auties.whatsapp4j.test.whatsapp;
+
+import it.auties.whatsapp4j.utils.internal.TokenBucket;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A simple class to check that {@link TokenBucket}, used to pace bulk sends, allows a burst and then the configured rate
+ */
+@Log
+public class TokenBucketTest {
+    @Test
+    public void testBurst() {
+        log.info("Draining a bucket that holds five tokens...");
+        var bucket = new TokenBucket(1, 5);
+        for (var index = 0; index < 5; index++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+
+        var wait = bucket.tryAcquire();
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(900));
+        assertTrue(wait <= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testRate() throws InterruptedException {
+        log.info("Acquiring twenty permits at fifty permits per second...");
+        var bucket = new TokenBucket(50, 5);
+        var start = System.nanoTime();
+        for (var index = 0; index < 20; index++) {
+            bucket.acquire();
+        }
+
+        var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 280, "Permits were acquired too quickly: %sms".formatted(elapsed));
+    }
+
+    @Test
+    public void testUnlimited() {
+        log.info("Acquiring permits from an unlimited bucket...");
+        var bucket = new TokenBucket(0, 1);
+        for (var index = 0; index < 1_000; index++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+    }
+}